@@ -0,0 +1,85 @@
+package com.heapsimulation.benchmarks;
+
+import com.heapsimulation.base.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading and writing chunk meta data fields.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkAccessBenchmark {
+    private final static int MEMORY_SIZE = 1 << 16;
+    private final static int CHUNK_SIZE = 32;
+
+    private ChunkReader reader;
+    private ChunkWriter writer;
+    private int chunkIndex = 0;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        byte[] memory = new byte[MEMORY_SIZE];
+        reader = new ChunkReader(memory);
+        writer = new ChunkWriter(memory);
+
+        //fill memory with free chunks
+        int index = 0;
+        int chunkStep = CHUNK_SIZE + ChunkReader.getMetaDataSize();
+        while(index + chunkStep < MEMORY_SIZE){
+            writer.setPrevRealDataSize(index, CHUNK_SIZE);
+            writer.setRealDataSize(index, CHUNK_SIZE);
+            writer.setFreeStatus(index, true);
+            writer.setForwardFreeIndex(index, index + chunkStep);
+            writer.setBackwardFreeIndex(index, index - chunkStep);
+            index += chunkStep;
+        }
+    }
+
+    private int nextChunkIndex(){
+        chunkIndex = reader.getNextChunkIndex(chunkIndex);
+        if(chunkIndex + CHUNK_SIZE + ChunkReader.getMetaDataSize() >= MEMORY_SIZE){
+            chunkIndex = 0;
+        }
+
+        return chunkIndex;
+    }
+
+    @Benchmark
+    public void readHeader(Blackhole blackhole){
+        int index = nextChunkIndex();
+        blackhole.consume(reader.getRealDataSize(index));
+        blackhole.consume(reader.getPrevRealDataSize(index));
+        blackhole.consume(reader.isFree(index));
+    }
+
+    @Benchmark
+    public void readFreePointers(Blackhole blackhole){
+        int index = nextChunkIndex();
+        blackhole.consume(reader.getForwardFreeIndex(index));
+        blackhole.consume(reader.getBackwardFreeIndex(index));
+    }
+
+    @Benchmark
+    public int writeHeader(){
+        int index = nextChunkIndex();
+        writer.setRealDataSize(index, CHUNK_SIZE);
+        writer.setPrevRealDataSize(index, CHUNK_SIZE);
+        writer.setFreeStatus(index, true);
+        return index;
+    }
+
+    @Benchmark
+    public int writeFreePointers(){
+        int index = nextChunkIndex();
+        writer.setForwardFreeIndex(index, index);
+        writer.setBackwardFreeIndex(index, index);
+        return index;
+    }
+}
@@ -0,0 +1,59 @@
+package com.heapsimulation.benchmarks;
+
+import com.heapsimulation.base.*;
+import com.heapsimulation.binmanaging.*;
+import com.heapsimulation.events.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of heap events: no listener, a listener with empty methods, and a ring buffer delivering to another thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventListenerBenchmark {
+    private final static long SEED = 42;
+    private final static int RING_CAPACITY = 1 << 16;
+
+    @Param({"none", "empty", "ring"})
+    public String listener;
+
+    @Param({"FRAGMENTING"})
+    public Workload workload;
+
+    private int[] operations;
+    private long[] mallocs;
+    private MemoryHeap heap;
+    private RingBufferEventListener ringListener;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        operations = workload.createOperations(SEED);
+        mallocs = new long[Workload.getMallocCount(operations)];
+        heap = new MemoryHeap(Workload.HEAP_SIZE, BinManagerType.FIRST_FIT.create());
+        if(listener.equals("empty")){
+            heap.setEventListener(new IHeapEventListener(){});
+        }
+        else if(listener.equals("ring")){
+            ringListener = new RingBufferEventListener(RING_CAPACITY, new IHeapEventListener(){});
+            heap.setEventListener(ringListener);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        if(ringListener != null){
+            ringListener.close();
+        }
+    }
+
+    @Benchmark
+    public int replay(){
+        return Workload.replay(operations, heap, mallocs, false);
+    }
+}
@@ -0,0 +1,54 @@
+package com.heapsimulation.benchmarks;
+
+import com.heapsimulation.base.*;
+import com.heapsimulation.binmanaging.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of malloc and free for every bin manager and workload. Each invocation replays a whole workload and
+ * frees its chunks by handles or by sizes. Free by size misses chunks which were allocated bigger than their rounded
+ * size, so the heap is reset before each invocation in that mode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryHeapBenchmark {
+    private final static long SEED = 42;
+
+    @Param({"firstFit", "nextFit", "worstFit", "bestFit"})
+    public String binManager;
+
+    @Param({"STEADY", "FRAGMENTING", "CHURN"})
+    public Workload workload;
+
+    @Param({"handle", "size"})
+    public String free;
+
+    private int[] operations;
+    private long[] mallocs;
+    private MemoryHeap heap;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        operations = workload.createOperations(SEED);
+        mallocs = new long[Workload.getMallocCount(operations)];
+        heap = new MemoryHeap(Workload.HEAP_SIZE, BinManagerType.fromName(binManager).create());
+    }
+
+    @Setup(Level.Invocation)
+    public void resetHeap(){
+        if(free.equals("size")){
+            heap.reset(BinManagerType.fromName(binManager).create());
+        }
+    }
+
+    @Benchmark
+    public int replay(){
+        return Workload.replay(operations, heap, mallocs, free.equals("size"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.heapsimulation.benchmarks;
+
+import com.heapsimulation.base.*;
+import com.heapsimulation.bincollection.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of bin lookups, updates and free chunk counting of SmallBinsArray.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmallBinsArrayBenchmark {
+    private final static int FREE_CHUNKS_PER_BIN = 16;
+
+    private SmallBinsArray bins;
+    private ChunkReader reader;
+    private int chunkSize = HeapUtility.CHUNK_UNIT;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        //link same size free chunks of every bin as circular lists
+        int memorySize = 0;
+        for(int i = 1; i <= HeapUtility.SMALL_BINS_COUNT; i++){
+            memorySize += FREE_CHUNKS_PER_BIN * (i * HeapUtility.CHUNK_UNIT + ChunkReader.getMetaDataSize());
+        }
+        byte[] memory = new byte[memorySize];
+        reader = new ChunkReader(memory);
+        ChunkWriter writer = new ChunkWriter(memory);
+        bins = new SmallBinsArray();
+
+        int chunkIndex = 0;
+        for(int i = 1; i <= HeapUtility.SMALL_BINS_COUNT; i++){
+            int size = i * HeapUtility.CHUNK_UNIT;
+            int chunkStep = size + ChunkReader.getMetaDataSize();
+            int firstChunkIndex = chunkIndex;
+            int lastChunkIndex = chunkIndex + (FREE_CHUNKS_PER_BIN - 1) * chunkStep;
+            for(int j = 0; j < FREE_CHUNKS_PER_BIN; j++){
+                writer.setRealDataSize(chunkIndex, size);
+                writer.setFreeStatus(chunkIndex, true);
+                writer.setForwardFreeIndex(chunkIndex, chunkIndex == lastChunkIndex ? firstChunkIndex : chunkIndex + chunkStep);
+                writer.setBackwardFreeIndex(chunkIndex, chunkIndex == firstChunkIndex ? lastChunkIndex : chunkIndex - chunkStep);
+                chunkIndex += chunkStep;
+            }
+            bins.setStartFreeChunkIndex(size, firstChunkIndex);
+        }
+    }
+
+    private int nextChunkSize(){
+        chunkSize += HeapUtility.CHUNK_UNIT;
+        if(chunkSize > HeapUtility.SMALL_BINS_COUNT * HeapUtility.CHUNK_UNIT){
+            chunkSize = HeapUtility.CHUNK_UNIT;
+        }
+
+        return chunkSize;
+    }
+
+    @Benchmark
+    public boolean isSupported(){
+        return bins.isSupported(nextChunkSize());
+    }
+
+    @Benchmark
+    public int getStartFreeChunkIndex(){
+        return bins.getStartFreeChunkIndex(nextChunkSize());
+    }
+
+    @Benchmark
+    public int setStartFreeChunkIndex(){
+        int size = nextChunkSize();
+        int startIndex = bins.getStartFreeChunkIndex(size);
+        bins.setStartFreeChunkIndex(size, startIndex);
+        return startIndex;
+    }
+
+    @Benchmark
+    public int getBinFreeChunkCount(){
+        return bins.getBinFreeChunkCount(nextChunkSize(), reader);
+    }
+}
@@ -0,0 +1,181 @@
+package com.heapsimulation.benchmarks;
+
+import com.heapsimulation.base.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Operation sequences replayed by heap benchmarks. Positive values are malloc sizes and a negative value -(n + 1)
+ * frees the chunk of the n-th malloc of the sequence. Every sequence frees every chunk it has allocated, so a heap
+ * is empty again after each replay by handles and can replay it again and again. Free by size may choose another
+ * chunk or none when sizes are rounded up, so a heap replayed by sizes may keep some chunks.
+ */
+public enum Workload {
+    /**
+     * Fixed live set of a few sizes, the oldest chunk is freed and allocated again.
+     */
+    STEADY {
+        @Override
+        void addOperations(Builder builder, Random random) {
+            int[] sizes = {16, 32, 64, 128};
+            ArrayDeque<Integer> live = new ArrayDeque<>();
+            for(int i = 0; i < LIVE_CHUNKS; i++){
+                live.addLast(builder.malloc(sizes[random.nextInt(sizes.length)]));
+            }
+            for(int i = 0; i < OPERATION_PAIRS; i++){
+                int mallocNumber = live.removeFirst();
+                builder.free(mallocNumber);
+                live.addLast(builder.malloc(builder.getSize(mallocNumber)));
+            }
+            for(int mallocNumber : live){
+                builder.free(mallocNumber);
+            }
+        }
+    },
+    /**
+     * Small and big chunks are allocated alternately and small ones are freed, then medium sizes which do not fit
+     * the holes are allocated.
+     */
+    FRAGMENTING {
+        @Override
+        void addOperations(Builder builder, Random random) {
+            List<Integer> small = new ArrayList<>();
+            List<Integer> live = new ArrayList<>();
+            for(int i = 0; i < LIVE_CHUNKS / 2; i++){
+                small.add(builder.malloc(24));
+                live.add(builder.malloc(200 + random.nextInt(100)));
+            }
+            for(int mallocNumber : small){
+                builder.free(mallocNumber);
+            }
+            for(int i = 0; i < LIVE_CHUNKS / 2; i++){
+                live.add(builder.malloc(40 + random.nextInt(80)));
+            }
+            for(int mallocNumber : live){
+                builder.free(mallocNumber);
+            }
+        }
+    },
+    /**
+     * Random sizes including ones bigger than bins, freed in random order.
+     */
+    CHURN {
+        @Override
+        void addOperations(Builder builder, Random random) {
+            List<Integer> live = new ArrayList<>();
+            for(int i = 0; i < OPERATION_PAIRS * 2; i++){
+                if(live.size() == LIVE_CHUNKS || (!live.isEmpty() && random.nextBoolean())){
+                    builder.free(live.remove(random.nextInt(live.size())));
+                }
+                else{
+                    live.add(builder.malloc(1 + random.nextInt(600)));
+                }
+            }
+            for(int mallocNumber : live){
+                builder.free(mallocNumber);
+            }
+        }
+    };
+
+    public final static int HEAP_SIZE = 1 << 20;
+    private final static int LIVE_CHUNKS = 512;
+    private final static int OPERATION_PAIRS = 2048;
+
+    abstract void addOperations(Builder builder, Random random);
+
+    public int[] createOperations(long seed){
+        Builder builder = new Builder();
+        addOperations(builder, new Random(seed));
+        int[] result = new int[builder.operations.size()];
+        for(int i = 0; i < result.length; i++){
+            result[i] = builder.operations.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Get count of mallocs of operations, which is the mallocs length needed by replay.
+     * @param operations
+     * @return
+     */
+    public static int getMallocCount(int[] operations){
+        int mallocCount = 0;
+        for(int operation : operations){
+            if(operation > 0){
+                mallocCount++;
+            }
+        }
+
+        return mallocCount;
+    }
+
+    /**
+     * Run operations on the heap.
+     * @param operations operations created by createOperations
+     * @param heap
+     * @param mallocs array of getMallocCount length, which keeps handles of mallocs, or their sizes if freeBySize
+     * @param freeBySize free with free(int) instead of freeHandle
+     * @return Return count of succeeded operations.
+     */
+    public static int replay(int[] operations, MemoryHeap heap, long[] mallocs, boolean freeBySize){
+        int succeededCount = 0;
+        int mallocNumber = 0;
+        for(int operation : operations){
+            boolean succeeded;
+            if(operation > 0){
+                if(freeBySize){
+                    succeeded = heap.malloc(operation);
+                    mallocs[mallocNumber] = succeeded ? operation : HandleTable.NO_HANDLE;
+                }
+                else{
+                    long handle = heap.mallocHandle(operation);
+                    mallocs[mallocNumber] = handle;
+                    succeeded = handle != HandleTable.NO_HANDLE;
+                }
+                mallocNumber++;
+            }
+            else{
+                long malloc = mallocs[-operation - 1];
+                if(freeBySize){
+                    //failed mallocs are not freed, otherwise a chunk of another malloc could be freed
+                    succeeded = malloc != HandleTable.NO_HANDLE && heap.free((int)malloc);
+                }
+                else{
+                    //failed mallocs keep NO_HANDLE, which is not freed
+                    succeeded = heap.freeHandle(malloc);
+                }
+            }
+            if(succeeded){
+                succeededCount++;
+            }
+        }
+
+        return succeededCount;
+    }
+
+    static class Builder {
+        private final List<Integer> operations = new ArrayList<>();
+        private final List<Integer> sizes = new ArrayList<>();
+
+        /**
+         * @return Return malloc number of the added malloc.
+         */
+        int malloc(int size){
+            operations.add(size);
+            sizes.add(size);
+            return sizes.size() - 1;
+        }
+
+        void free(int mallocNumber){
+            operations.add(-mallocNumber - 1);
+        }
+
+        int getSize(int mallocNumber){
+            return sizes.get(mallocNumber);
+        }
+    }
+}
@@ -1,11 +1,402 @@
 import com.heapsimulation.*;
+import com.heapsimulation.base.*;
+import com.heapsimulation.binmanaging.*;
+import com.heapsimulation.comparison.*;
+import com.heapsimulation.latency.*;
+import com.heapsimulation.pipeline.*;
+import com.heapsimulation.service.*;
+import com.heapsimulation.telemetry.*;
+import com.heapsimulation.trace.*;
+import com.heapsimulation.workload.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Main {
+    private final static String OUTPUT_OPTION = "--output=";
+    private final static String CHECKPOINT_SEPARATOR = ":";
+    private final static String BINARY_OPTION = "--binary";
+    private final static String CONVERT_OPTION = "--convert=";
+    private final static String COMPRESS_OPTION = "--compress";
+    private final static String COMPARE_OPTION = "--compare";
+    private final static String GENERATE_OPTION = "--generate=";
+    private final static String SEED_OPTION = "--seed=";
+    private final static String MANAGER_OPTION = "--manager=";
+    private final static String LATENCY_OPTION = "--latency";
+    private final static String LATENCY_CSV_OPTION = "--latency-csv=";
+    private final static String MEMORY_ACCESS_OPTION = "--memory-access";
+    private final static String CACHE_MODEL_OPTION = "--cache-model=";
+    private final static String VERIFY_OPTION = "--verify=";
+    private final static String BACKGROUND_VERIFY_OPTION = "--verify-background=";
+    private final static String SERVE_OPTION = "--serve";
+    private final static String PIPELINED_OPTION = "--pipelined";
+    private final static String TELEMETRY_OPTION = "--telemetry=";
+    private final static String HEAP_SIZE_OPTION = "--heap-size=";
+    private final static String TELEMETRY_CSV_OPTION = "--telemetry-csv=";
+    private final static String SERVE_PORT_PREFIX = "=";
+    private final static int MAX_IDLE_HEAP_COUNT = 64;
 
     public static void main(String[] args) {
         if(args != null && args.length > 0){
-            CommandProcessor processor = new CommandProcessor();
-            processor.processFile(args[0]);
+            String filePath = null;
+            OutputMode outputMode = OutputMode.FULL;
+            int checkpointInterval = 0;
+            boolean binary = false;
+            String convertFilePath = null;
+            boolean compress = false;
+            boolean compare = false;
+            String workloadSpec = null;
+            long seed = 0;
+            BinManagerType binManagerType = BinManagerType.FIRST_FIT;
+            boolean latency = false;
+            String latencyCsvFilePath = null;
+            boolean memoryAccess = false;
+            SetAssociativeCache cache = null;
+            int verificationInterval = 0;
+            boolean backgroundVerification = false;
+            boolean serve = false;
+            boolean pipelined = false;
+            int telemetryInterval = 0;
+            int heapSize = MemoryHeap.DEFAULT_HEAP_SIZE;
+            String telemetryFilePath = null;
+            int servePort = 0;
+            for(String arg : args){
+                if(arg.startsWith(OUTPUT_OPTION)){
+                    //full, final or checkpoint:N
+                    String[] modeArgs = arg.substring(OUTPUT_OPTION.length()).split(CHECKPOINT_SEPARATOR);
+                    outputMode = OutputMode.fromName(modeArgs[0]);
+                    if(outputMode == OutputMode.CHECKPOINT && modeArgs.length > 1){
+                        checkpointInterval = parsePositiveInt(modeArgs[1]);
+                    }
+                    if(outputMode == null || (outputMode == OutputMode.CHECKPOINT && checkpointInterval <= 0)){
+                        System.out.println("No valid output mode! Use full, final or checkpoint:N");
+                        return;
+                    }
+                }
+                else if(arg.equals(BINARY_OPTION)){
+                    binary = true;
+                }
+                else if(arg.startsWith(CONVERT_OPTION)){
+                    convertFilePath = arg.substring(CONVERT_OPTION.length());
+                }
+                else if(arg.equals(COMPRESS_OPTION)){
+                    compress = true;
+                }
+                else if(arg.equals(COMPARE_OPTION)){
+                    compare = true;
+                }
+                else if(arg.startsWith(GENERATE_OPTION)){
+                    workloadSpec = arg.substring(GENERATE_OPTION.length());
+                }
+                else if(arg.startsWith(SEED_OPTION)){
+                    try{
+                        seed = Long.parseLong(arg.substring(SEED_OPTION.length()));
+                    }
+                    catch(NumberFormatException exception){
+                        System.out.println("No valid seed!");
+                        return;
+                    }
+                }
+                else if(arg.startsWith(MANAGER_OPTION)){
+                    binManagerType = BinManagerType.fromName(arg.substring(MANAGER_OPTION.length()));
+                    if(binManagerType == null){
+                        System.out.println("No valid bin manager!");
+                        return;
+                    }
+                }
+                else if(arg.equals(LATENCY_OPTION)){
+                    latency = true;
+                }
+                else if(arg.startsWith(LATENCY_CSV_OPTION)){
+                    latency = true;
+                    latencyCsvFilePath = arg.substring(LATENCY_CSV_OPTION.length());
+                }
+                else if(arg.equals(MEMORY_ACCESS_OPTION)){
+                    memoryAccess = true;
+                }
+                else if(arg.startsWith(CACHE_MODEL_OPTION)){
+                    //cacheSize:ways
+                    String[] cacheArgs = arg.substring(CACHE_MODEL_OPTION.length()).split(CHECKPOINT_SEPARATOR);
+                    int cacheSize = parsePositiveInt(cacheArgs[0]);
+                    int ways = cacheArgs.length > 1 ? parsePositiveInt(cacheArgs[1]) : -1;
+                    try{
+                        cache = new SetAssociativeCache(cacheSize, ways, MemoryAccessTracker.DEFAULT_CACHE_LINE_SIZE);
+                    }
+                    catch(IllegalArgumentException exception){
+                        System.out.println("No valid cache model! Use SIZE:WAYS, " + exception.getMessage());
+                        return;
+                    }
+                    memoryAccess = true;
+                }
+                else if(arg.startsWith(VERIFY_OPTION) || arg.startsWith(BACKGROUND_VERIFY_OPTION)){
+                    backgroundVerification = arg.startsWith(BACKGROUND_VERIFY_OPTION);
+                    String intervalArg = arg.substring(backgroundVerification ? BACKGROUND_VERIFY_OPTION.length() : VERIFY_OPTION.length());
+                    verificationInterval = parsePositiveInt(intervalArg);
+                    if(verificationInterval <= 0){
+                        System.out.println("No valid verification interval!");
+                        return;
+                    }
+                }
+                else if(arg.startsWith(HEAP_SIZE_OPTION)){
+                    heapSize = parsePositiveInt(arg.substring(HEAP_SIZE_OPTION.length()));
+                    if(heapSize <= 0){
+                        System.out.println("No valid heap size!");
+                        return;
+                    }
+                }
+                else if(arg.startsWith(TELEMETRY_OPTION)){
+                    //N:file
+                    String[] telemetryArgs = arg.substring(TELEMETRY_OPTION.length()).split(CHECKPOINT_SEPARATOR, 2);
+                    telemetryInterval = parsePositiveInt(telemetryArgs[0]);
+                    if(telemetryInterval <= 0 || telemetryArgs.length < 2 || telemetryArgs[1].isEmpty()){
+                        System.out.println("No valid telemetry! Use N:<telemetry file>");
+                        return;
+                    }
+                    telemetryFilePath = telemetryArgs[1];
+                }
+                else if(arg.startsWith(TELEMETRY_CSV_OPTION)){
+                    exportTelemetryCsv(arg.substring(TELEMETRY_CSV_OPTION.length()));
+                    return;
+                }
+                else if(arg.equals(PIPELINED_OPTION)){
+                    pipelined = true;
+                }
+                else if(arg.startsWith(SERVE_OPTION)){
+                    serve = true;
+                    String portArg = arg.substring(SERVE_OPTION.length());
+                    if(portArg.startsWith(SERVE_PORT_PREFIX)){
+                        servePort = parsePositiveInt(portArg.substring(SERVE_PORT_PREFIX.length()));
+                        if(servePort <= 0){
+                            System.out.println("No valid port!");
+                            return;
+                        }
+                    }
+                }
+                else{
+                    filePath = arg;
+                }
+            }
+
+            WorkloadGenerator generator = null;
+            if(workloadSpec != null){
+                try{
+                    generator = new WorkloadGenerator(seed, WorkloadSpecParser.parsePhases(workloadSpec), binManagerType, false);
+                }
+                catch(IllegalArgumentException exception){
+                    System.out.println("No valid workload! " + exception.getMessage());
+                    return;
+                }
+            }
+
+            if(convertFilePath != null){
+                if(generator != null){
+                    exportWorkload(generator, convertFilePath, compress);
+                }
+                else{
+                    convertTextTrace(filePath, convertFilePath, compress);
+                }
+                return;
+            }
+
+            if(serve){
+                serve(outputMode, checkpointInterval, heapSize, servePort);
+                return;
+            }
+
+            if(compare){
+                compareStrategies(filePath, binary, generator, heapSize);
+                return;
+            }
+
+            if(pipelined){
+                if(latency || memoryAccess || verificationInterval > 0 || telemetryFilePath != null){
+                    System.out.println("Pipelined mode can not measure latency, memory access, telemetry or verify heaps");
+                    return;
+                }
+                processPipelined(outputMode, checkpointInterval, heapSize, filePath, binary, generator);
+                return;
+            }
+
+            CommandProcessor processor = new CommandProcessor(outputMode, checkpointInterval);
+            processor.setHeapSize(heapSize);
+            LatencyRecorder latencyRecorder = null;
+            if(latency){
+                latencyRecorder = new LatencyRecorder();
+                processor.setLatencyRecorder(latencyRecorder);
+            }
+            if(memoryAccess){
+                processor.setMemoryAccessTracker(new MemoryAccessTracker(MemoryAccessTracker.DEFAULT_CACHE_LINE_SIZE,
+                        MemoryAccessTracker.DEFAULT_PAGE_SIZE, cache));
+            }
+            processor.setHeapVerification(verificationInterval, backgroundVerification);
+            TelemetrySampler telemetrySampler = null;
+            if(telemetryFilePath != null){
+                try{
+                    telemetrySampler = new TelemetrySampler(telemetryFilePath, telemetryInterval);
+                }
+                catch(IOException exception){
+                    exception.printStackTrace();
+                    return;
+                }
+                processor.setTelemetrySampler(telemetrySampler);
+            }
+            if(generator != null){
+                processor.processWorkload(generator);
+            }
+            else if(binary){
+                processor.processBinaryFile(filePath);
+            }
+            else{
+                processor.processFile(filePath);
+            }
+
+            if(telemetrySampler != null){
+                try{
+                    telemetrySampler.close();
+                }
+                catch(IOException exception){
+                    exception.printStackTrace();
+                }
+            }
+
+            if(latencyCsvFilePath != null){
+                writeLatencyCsv(latencyRecorder, latencyCsvFilePath);
+            }
+        }
+    }
+
+    private static void processPipelined(OutputMode outputMode, int checkpointInterval, int heapSize, String filePath,
+                                         boolean binary, WorkloadGenerator generator){
+        PipelinedCommandProcessor processor = new PipelinedCommandProcessor(outputMode, checkpointInterval);
+        processor.setHeapSize(heapSize);
+        if(generator != null){
+            processor.processWorkload(generator);
+        }
+        else if(binary){
+            processor.processBinaryFile(filePath);
+        }
+        else{
+            processor.processFile(filePath);
+        }
+    }
+
+    /**
+     * Serve multiplexed sessions from standard input, or from local socket connections if port is positive.
+     */
+    private static void serve(OutputMode outputMode, int checkpointInterval, int heapSize, int port){
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        SimulationService service = new SimulationService(executor, new HeapPool(heapSize, MAX_IDLE_HEAP_COUNT), outputMode,
+                checkpointInterval);
+        try{
+            if(port > 0){
+                new SimulationServer(port, service).run();
+            }
+            else{
+                BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+                PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+                service.serve(in, out);
+            }
+        }
+        catch(IOException exception){
+            exception.printStackTrace();
+        }
+        finally{
+            executor.shutdown();
+        }
+    }
+
+    private static void exportTelemetryCsv(String telemetryFilePath){
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        try{
+            new TelemetryReader().exportCsv(telemetryFilePath, out);
+        }
+        catch(IOException exception){
+            exception.printStackTrace();
+        }
+        finally{
+            out.flush();
+        }
+    }
+
+    private static void writeLatencyCsv(LatencyRecorder latencyRecorder, String csvFilePath){
+        try(PrintWriter out = new PrintWriter(new FileOutputStream(csvFilePath))){
+            latencyRecorder.writeCsv(out);
+        }
+        catch(IOException exception){
+            exception.printStackTrace();
+        }
+    }
+
+    private static void convertTextTrace(String textFilePath, String binaryFilePath, boolean compress){
+        if(textFilePath == null){
+            System.out.println("No commands file to convert");
+            return;
+        }
+
+        try{
+            BinaryTraceWriter.convertTextTrace(textFilePath, binaryFilePath, compress);
+        }
+        catch(IOException exception){
+            exception.printStackTrace();
+        }
+    }
+
+    private static void exportWorkload(WorkloadGenerator generator, String binaryFilePath, boolean compress){
+        try(BinaryTraceWriter writer = new BinaryTraceWriter(new FileOutputStream(binaryFilePath), compress)){
+            generator.generate(writer);
+        }
+        catch(IOException exception){
+            exception.printStackTrace();
+        }
+        catch(UncheckedIOException exception){
+            exception.getCause().printStackTrace();
+        }
+    }
+
+    private static void compareStrategies(String filePath, boolean binary, WorkloadGenerator generator, int heapSize){
+        TraceRecording recording = new TraceRecording();
+        if(generator != null){
+            generator.generate(recording);
+        }
+        else if(filePath == null){
+            System.out.println("No commands file to compare strategies");
+            return;
+        }
+        else{
+            try{
+                if(binary){
+                    new BinaryTraceReplayer().replay(filePath, recording);
+                }
+                else{
+                    new StreamingTraceParser().parse(filePath, recording);
+                }
+            }
+            catch(IOException exception){
+                exception.printStackTrace();
+                return;
+            }
+        }
+
+        StrategyComparison comparison = new StrategyComparison(recording, heapSize);
+        PrintWriter out = new PrintWriter(System.out);
+        StrategyComparison.printReport(comparison.compare(BinManagerType.values()), out);
+        out.flush();
+    }
+
+    private static int parsePositiveInt(String arg){
+        try{
+            return Integer.parseInt(arg);
+        }
+        catch(NumberFormatException exception){
+            return -1;
         }
     }
 }
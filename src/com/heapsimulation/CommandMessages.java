@@ -0,0 +1,38 @@
+package com.heapsimulation;
+
+/**
+ * Messages printed for commands, shared by sequential and pipelined processing so both print the same output.
+ */
+public final class CommandMessages {
+    public static final String INVALID_COMMAND = "Invalid command!";
+    public static final String INVALID_BIN_MANAGER = "No valid bin manager! No heap has been created.";
+    public static final String INVALID_ALLOCATION_SIZE = "No valid number for allocation";
+    public static final String INVALID_DEALLOCATION_SIZE = "No valid number for deallocation";
+    public static final String NO_HEAP = "No heap has been setup";
+    public static final String HEAP_END_INFO = "Print heap info at end:";
+
+    public static String heapCreated(String binManagerName){
+        return String.format("Heap with %s as bin manager has been created", binManagerName);
+    }
+
+    public static String checkpoint(long operationCount){
+        return String.format("Checkpoint after %d operations:", operationCount);
+    }
+
+    public static String allocation(boolean succeeded, int size){
+        return heapAction(succeeded, size, "allocation");
+    }
+
+    public static String deAllocation(boolean succeeded, int size){
+        return heapAction(succeeded, size, "deallocation");
+    }
+
+    private static String heapAction(boolean succeeded, int size, String action){
+        if(succeeded){
+            return String.format("Memory %d bytes %s was successful.", size, action);
+        }
+        else{
+            return String.format("Memory %d bytes %s failed.", size, action);
+        }
+    }
+}
@@ -1,54 +1,175 @@
 package com.heapsimulation;
 
+import com.heapsimulation.base.HandleTable;
+import com.heapsimulation.base.MemoryAccessTracker;
 import com.heapsimulation.base.MemoryHeap;
+import com.heapsimulation.base.SampledHeapVerifier;
 import com.heapsimulation.binmanaging.*;
+import com.heapsimulation.latency.*;
+import com.heapsimulation.service.HeapPool;
+import com.heapsimulation.telemetry.TelemetrySampler;
+import com.heapsimulation.trace.*;
+import com.heapsimulation.workload.*;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.List;
 
-public class CommandProcessor {
-    private final static String INVALID_COMMAND_ERROR = "Invalid command!";
+public class CommandProcessor implements ITraceCommandHandler {
+    private final static int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private final static int NO_ALLOCATION = -1;
     private MemoryHeap heap;
+    private final PrintWriter out;
+    private final OutputMode outputMode;
+    private final int checkpointInterval;
+    private long operationCount = 0;
+    private LatencyRecorder latencyRecorder = null;
+    private MemoryAccessTracker accessTracker = null;
+    private int verificationInterval = 0;
+    private boolean backgroundVerification = false;
+    private SampledHeapVerifier verifier = null;
+    private HeapPool heapPool = null;
+    private TelemetrySampler telemetrySampler = null;
+    private int heapSize = MemoryHeap.DEFAULT_HEAP_SIZE;
+    //handles of generated workload allocations by allocation id
+    private long[] allocationHandles = new long[0];
+
+    public CommandProcessor(){
+        this(OutputMode.FULL, 0);
+    }
+
+    /**
+     * @param outputMode
+     * @param checkpointInterval count of malloc and free commands between checkpoints, used by CHECKPOINT mode
+     */
+    public CommandProcessor(OutputMode outputMode, int checkpointInterval){
+        this(new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), OUTPUT_BUFFER_SIZE)), outputMode, checkpointInterval);
+    }
+
+    public CommandProcessor(PrintWriter out, OutputMode outputMode, int checkpointInterval){
+        if(outputMode == OutputMode.CHECKPOINT && checkpointInterval <= 0){
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+
+        this.out = out;
+        this.outputMode = outputMode;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Record latency of malloc and free commands and print them with heap end info.
+     * @param latencyRecorder recorder, or null to stop recording
+     */
+    public void setLatencyRecorder(LatencyRecorder latencyRecorder){
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * Count memory accesses of malloc and free commands of every heap and print them with heap end info.
+     * @param accessTracker tracker which is reset for every heap, or null to stop counting
+     */
+    public void setMemoryAccessTracker(MemoryAccessTracker accessTracker){
+        this.accessTracker = accessTracker;
+    }
+
+    /**
+     * Verify consistency of every heap once every interval malloc and free commands, and print found problems with
+     * heap end info.
+     * @param interval count of commands between verifications, or 0 to stop verifying
+     * @param background verify heap snapshots on another thread
+     */
+    public void setHeapVerification(int interval, boolean background){
+        verificationInterval = interval;
+        backgroundVerification = background;
+    }
+
+    /**
+     * Set memory size of heaps created by setBinManager, heaps taken from a heap pool have the pool heap size.
+     * @param heapSize
+     */
+    public void setHeapSize(int heapSize){
+        if(heapSize <= 0){
+            throw new IllegalArgumentException("Heap size must be positive");
+        }
+
+        this.heapSize = heapSize;
+    }
+
+    /**
+     * Take heaps from the pool and return them to it when they are replaced or finished.
+     * @param heapPool pool, or null to create a new heap for every setBinManager
+     */
+    public void setHeapPool(HeapPool heapPool){
+        this.heapPool = heapPool;
+    }
+
+    /**
+     * Sample state of every heap into a telemetry file while processing commands.
+     * @param telemetrySampler sampler which is closed by its owner, or null to stop sampling
+     */
+    public void setTelemetrySampler(TelemetrySampler telemetrySampler){
+        this.telemetrySampler = telemetrySampler;
+    }
 
     public void processFile(String filePath){
         if(filePath == null){
             return;
         }
 
-        FileReader fileReader = null;
-        BufferedReader bufferedReader = null;
         try{
-            fileReader = new FileReader(filePath);
-            bufferedReader = new BufferedReader(fileReader);
-            String command = bufferedReader.readLine();
-            while(command != null){
-                processCommand(command);
-                command = bufferedReader.readLine();
+            new StreamingTraceParser().parse(filePath, this);
+            if(heap != null){
+                printHeapEndInfo();
             }
-            printHeapEndInfo();
         }
         catch(IOException exception){
             exception.printStackTrace();
         }
         finally{
-            Closeable closeable;
-            if(bufferedReader != null){
-                closeable = bufferedReader;
-            }
-            else if(fileReader != null){
-                closeable = fileReader;
-            }
-            else{
-                closeable = null;
+            closeVerifier();
+            out.flush();
+        }
+    }
+
+    /**
+     * Process commands of a binary trace file written by BinaryTraceWriter.
+     * @param filePath
+     */
+    public void processBinaryFile(String filePath){
+        if(filePath == null){
+            return;
+        }
+
+        try{
+            new BinaryTraceReplayer().replay(filePath, this);
+            if(heap != null){
+                printHeapEndInfo();
             }
+        }
+        catch(IOException exception){
+            exception.printStackTrace();
+        }
+        finally{
+            closeVerifier();
+            out.flush();
+        }
+    }
 
-            if(closeable != null){
-                try {
-                    closeable.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+    /**
+     * Process commands generated by workload generator, without writing them to a trace file.
+     * @param generator
+     */
+    public void processWorkload(WorkloadGenerator generator){
+        try{
+            generator.generate(this);
+            if(heap != null){
+                printHeapEndInfo();
             }
         }
+        finally{
+            closeVerifier();
+            out.flush();
+        }
     }
 
     public void processCommand(String command){
@@ -57,10 +178,6 @@ public class CommandProcessor {
             if(args.length > 1){
                 switch(args[0]){
                     case "setBinManager":
-                        if(heap != null){
-                            //previous heap commands has finished
-                            printHeapEndInfo();
-                        }
                         parseBinManager(args[1]);
                         break;
                     case "malloc":
@@ -70,107 +187,293 @@ public class CommandProcessor {
                         parseDeAllocation(args[1]);
                         break;
                     default:
-                        System.out.println(INVALID_COMMAND_ERROR);
+                        onInvalidCommand();
                 }
             }
             else if(args.length == 1 && !args[0].isEmpty()){
-                System.out.println(INVALID_COMMAND_ERROR);
+                onInvalidCommand();
             }
         }
     }
 
+    @Override
+    public void onSetBinManager(BinManagerType binManagerType) {
+        finishPreviousHeap();
+        initializeHeap(binManagerType.create());
+    }
+
+    @Override
+    public void onMalloc(int size) {
+        processAllocation(size, NO_ALLOCATION);
+    }
+
+    @Override
+    public void onFree(int size) {
+        processDeAllocation(size, NO_ALLOCATION);
+    }
+
+    @Override
+    public boolean onMallocAllocation(int allocationId, int size) {
+        return processAllocation(size, allocationId);
+    }
+
+    @Override
+    public void onFreeAllocation(int allocationId, int size) {
+        processDeAllocation(size, allocationId);
+    }
+
+    @Override
+    public void onInvalidBinManager() {
+        finishPreviousHeap();
+        out.println(CommandMessages.INVALID_BIN_MANAGER);
+    }
+
+    @Override
+    public void onInvalidAllocationSize() {
+        out.println(CommandMessages.INVALID_ALLOCATION_SIZE);
+    }
+
+    @Override
+    public void onInvalidDeAllocationSize() {
+        out.println(CommandMessages.INVALID_DEALLOCATION_SIZE);
+    }
+
+    @Override
+    public void onInvalidCommand() {
+        out.println(CommandMessages.INVALID_COMMAND);
+    }
+
     private void parseBinManager(String binManagerName){
-        switch(binManagerName){
-            case "firstFit":
-                initializeHeap(new FirstFitManager());
-                break;
-            case "nextFit":
-                initializeHeap(new NextFitManager());
-                break;
-            case "worstFit":
-                initializeHeap(new WorstFitManager());
-                break;
-            case "bestFit":
-                initializeHeap(new BestFitManager());
-                break;
-            default:
-                System.out.println("No valid bin manager! No heap has been created.");
+        BinManagerType binManagerType = BinManagerType.fromName(binManagerName);
+        if(binManagerType != null){
+            onSetBinManager(binManagerType);
+        }
+        else{
+            onInvalidBinManager();
+        }
+    }
+
+    private void finishPreviousHeap(){
+        if(heap != null){
+            //previous heap commands has finished
+            printHeapEndInfo();
         }
     }
 
     private void initializeHeap(IBinManager binManager){
-        heap = new MemoryHeap(binManager);
-        String message = String.format("Heap with %s as bin manager has been created", binManager.getClass().getSimpleName());
-        System.out.println(message);
+        if(heapPool != null){
+            if(heap != null){
+                heapPool.release(heap);
+            }
+            heap = heapPool.acquire(binManager);
+        }
+        else{
+            heap = new MemoryHeap(heapSize, binManager);
+        }
+        if(latencyRecorder != null){
+            latencyRecorder.startHeap(binManager.getClass().getSimpleName());
+        }
+        if(accessTracker != null){
+            accessTracker.reset();
+            heap.setMemoryAccessTracker(accessTracker);
+        }
+        if(telemetrySampler != null){
+            telemetrySampler.startHeap(heap);
+        }
+        closeVerifier();
+        verifier = verificationInterval > 0 ? new SampledHeapVerifier(heap, verificationInterval, backgroundVerification) : null;
+        out.println(CommandMessages.heapCreated(binManager.getClass().getSimpleName()));
     }
 
     private void parseAllocation(String sizeArg){
         try{
             int size = Integer.parseInt(sizeArg);
-            processAllocation(size);
+            processAllocation(size, NO_ALLOCATION);
         }
         catch(NumberFormatException exception){
-            System.out.println("No valid number for allocation");
+            onInvalidAllocationSize();
         }
     }
 
-    private void processAllocation(int size){
+    /**
+     * @param allocationId id of a generated workload allocation, whose handle is kept, or NO_ALLOCATION
+     * @return Return true if a heap has been setup and allocation succeeded.
+     */
+    private boolean processAllocation(int size, int allocationId){
         if(heap != null){
-            boolean succeeded = heap.malloc(size);
-            printAllocation(succeeded, size);
-            heap.printAllocatedChunks();
+            boolean succeeded;
+            if(latencyRecorder == null){
+                succeeded = allocate(size, allocationId);
+            }
+            else{
+                long startTime = System.nanoTime();
+                succeeded = allocate(size, allocationId);
+                latencyRecorder.recordMalloc(size, System.nanoTime() - startTime);
+            }
+            if(verifier != null){
+                verifier.operationFinished();
+            }
+            if(telemetrySampler != null){
+                telemetrySampler.operationFinished();
+            }
+            if(outputMode == OutputMode.FULL){
+                out.println(CommandMessages.allocation(succeeded, size));
+                heap.printAllocatedChunks(out);
+            }
+            else{
+                countOperation();
+            }
+            return succeeded;
         }
         else{
-            System.out.println("No heap has been setup");
+            out.println(CommandMessages.NO_HEAP);
+            return false;
         }
     }
 
     private void parseDeAllocation(String sizeArg){
         try{
             int size = Integer.parseInt(sizeArg);
-            processDeAllocation(size);
+            processDeAllocation(size, NO_ALLOCATION);
         }
         catch(NumberFormatException exception){
-            System.out.println("No valid number for deallocation");
+            onInvalidDeAllocationSize();
         }
     }
 
-    private void processDeAllocation(int size){
+    private void processDeAllocation(int size, int allocationId){
         if(heap != null){
-            boolean succeeded = heap.free(size);
-            printDeAllocation(succeeded, size);
-            heap.printBins();
+            boolean succeeded;
+            if(latencyRecorder == null){
+                succeeded = deAllocate(size, allocationId);
+            }
+            else{
+                long startTime = System.nanoTime();
+                succeeded = deAllocate(size, allocationId);
+                latencyRecorder.recordFree(size, System.nanoTime() - startTime);
+            }
+            if(verifier != null){
+                verifier.operationFinished();
+            }
+            if(telemetrySampler != null){
+                telemetrySampler.operationFinished();
+            }
+            if(outputMode == OutputMode.FULL){
+                out.println(CommandMessages.deAllocation(succeeded, size));
+                heap.printBins(out);
+            }
+            else{
+                countOperation();
+            }
         }
         else{
-            System.out.println("No heap has been setup");
+            out.println(CommandMessages.NO_HEAP);
         }
     }
 
-    private void printAllocation(boolean succeeded, int size){
-        printHeapAction(succeeded, size, "allocation");
+    private boolean allocate(int size, int allocationId){
+        if(allocationId == NO_ALLOCATION){
+            return heap.malloc(size);
+        }
+
+        if(allocationId >= allocationHandles.length){
+            allocationHandles = Arrays.copyOf(allocationHandles, Math.max(16, (allocationId + 1) * 2));
+        }
+        long handle = heap.mallocHandle(size);
+        allocationHandles[allocationId] = handle;
+        return handle != HandleTable.NO_HANDLE;
     }
 
-    private void printDeAllocation(boolean succeeded, int size){
-        printHeapAction(succeeded, size, "deallocation");
+    private boolean deAllocate(int size, int allocationId){
+        if(allocationId == NO_ALLOCATION){
+            return heap.free(size);
+        }
+
+        return heap.freeHandle(allocationHandles[allocationId]);
     }
 
-    private void printHeapAction(boolean succeeded, int size, String action){
-        String message;
-        if(succeeded){
-            message = String.format("Memory %d bytes %s was successful.", size, action);
+    private void countOperation(){
+        operationCount++;
+        if(outputMode == OutputMode.CHECKPOINT && operationCount % checkpointInterval == 0){
+            out.println(CommandMessages.checkpoint(operationCount));
+            heap.printBins(out);
+            heap.printAllocatedChunks(out);
         }
-        else{
-            message = String.format("Memory %d bytes %s failed.", size, action);
+    }
+
+    private void printHeapEndInfo(){
+        out.println();
+        out.println(CommandMessages.HEAP_END_INFO);
+        heap.printBins(out);
+        heap.printAllocatedChunks(out);
+        if(latencyRecorder != null){
+            latencyRecorder.printHeapLatencies(out);
         }
+        if(accessTracker != null){
+            accessTracker.print(out);
+        }
+        if(verifier != null){
+            printVerification();
+        }
+        out.println();
+    }
 
-        System.out.println(message);
+    private void printVerification(){
+        verifier.awaitVerification();
+        List<String> failures = verifier.getFailures();
+        out.println(String.format("Heap verification: %d checks, %d skipped, %d problems",
+                verifier.getVerificationCount(), verifier.getSkippedCount(), failures.size()));
+        for(String failure : failures){
+            out.println(failure);
+        }
     }
 
-    private void printHeapEndInfo(){
-        System.out.println();
-        System.out.println("Print heap info at end:");
-        heap.printBins();
-        heap.printAllocatedChunks();
-        System.out.println();
+    /**
+     * Print end info of the current heap, return it to the heap pool and write buffered output. Commands after it need
+     * a new setBinManager. A heap whose end info fails is abandoned instead of returned.
+     */
+    public void finish(){
+        if(heap != null){
+            try{
+                printHeapEndInfo();
+            }
+            catch(RuntimeException exception){
+                abandon();
+                throw exception;
+            }
+            closeVerifier();
+            if(heapPool != null){
+                heapPool.release(heap);
+            }
+            heap = null;
+        }
+        out.flush();
+    }
+
+    /**
+     * Drop the current heap without printing its end info, because a failed command may have left it broken. The heap
+     * is not returned to the heap pool. Commands after it need a new setBinManager.
+     */
+    public void abandon(){
+        closeVerifier();
+        heap = null;
+        out.flush();
+    }
+
+    /**
+     * Stop verifying the current heap, which is replaced or finished.
+     */
+    private void closeVerifier(){
+        if(verifier != null){
+            verifier.close();
+            verifier = null;
+        }
+    }
+
+    /**
+     * Write buffered output.
+     */
+    public void flush(){
+        out.flush();
     }
 }
@@ -0,0 +1,44 @@
+package com.heapsimulation;
+
+/**
+ * How much heap state CommandProcessor prints while processing commands.
+ */
+public enum OutputMode {
+    /**
+     * Print result of every command, allocated chunks after every malloc and bins after every free.
+     */
+    FULL("full"),
+    /**
+     * Print bins and allocated chunks once every checkpoint interval of malloc and free commands.
+     */
+    CHECKPOINT("checkpoint"),
+    /**
+     * Print only heap info at end.
+     */
+    FINAL_ONLY("final");
+
+    private final String name;
+
+    OutputMode(String name){
+        this.name = name;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Find output mode by its command line name.
+     * @param name
+     * @return Return the output mode, or null if no output mode has this name.
+     */
+    public static OutputMode fromName(String name){
+        for(OutputMode mode : values()){
+            if(mode.name.equals(name)){
+                return mode;
+            }
+        }
+
+        return null;
+    }
+}
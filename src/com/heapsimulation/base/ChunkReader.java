@@ -8,19 +8,29 @@ import java.nio.ByteBuffer;
  * size(metaData+data size of this chunk)(Integer bytes) + isFree(one byte flag)
  * Free Chunk Meta Data: allocated chunk meta data + forwardPointer(points to next free chunk of same size)(Integer bytes) +
  * backwardPointer(points to previous free chunk of same size)(Integer bytes)
- * Allocated Chunk Structure: allocated chunk meta data + data bytes
+ * Allocated Chunk Structure: allocated chunk meta data + data bytes(first Integer bytes keep handle slot of the chunk,
+ * second Integer bytes keep size requested by malloc)
  * Free Chunk Structure: free chunk meta data + unused bytes(size of free chunk)
  * Note: pointers in free chunks simulate doubly circular linked list
  */
 public class ChunkReader {
     private byte[] memory;
     private ByteBuffer intBuffer;
+    private MemoryAccessTracker accessTracker = null;
 
     public ChunkReader(byte[] memory){
         this.memory = memory;
         intBuffer = ByteBuffer.allocate(Integer.BYTES);
     }
 
+    /**
+     * Report every memory access to the tracker.
+     * @param accessTracker tracker, or null to stop reporting
+     */
+    public void setMemoryAccessTracker(MemoryAccessTracker accessTracker){
+        this.accessTracker = accessTracker;
+    }
+
     public static int getMetaDataSize(){
         return Integer.BYTES * 2 + 1;   //prevSize, size, isFree flag
         //for free chunks the pointers space is shared with data space so it is not included in meta data size
@@ -70,6 +80,9 @@ public class ChunkReader {
     public boolean isFree(int chunkIndex){
         CheckIndex(chunkIndex);
         int flagIndex = chunkIndex + 2 * Integer.BYTES; //after prevSize and size bytes
+        if(accessTracker != null){
+            accessTracker.access(flagIndex, 1);
+        }
         return memory[flagIndex] != 0;
     }
 
@@ -100,6 +113,20 @@ public class ChunkReader {
         return intBuffer.getInt(0);
     }
 
+    public int getHandleSlot(int chunkIndex){
+        CheckIndex(chunkIndex);
+        int handleSlotIndex = chunkIndex + getMetaDataSize();  //first data bytes
+        FillIntBuffer(handleSlotIndex);
+        return intBuffer.getInt(0);
+    }
+
+    public int getRequestedSize(int chunkIndex){
+        CheckIndex(chunkIndex);
+        int requestedSizeIndex = chunkIndex + getMetaDataSize() + Integer.BYTES;    //after handle slot bytes
+        FillIntBuffer(requestedSizeIndex);
+        return intBuffer.getInt(0);
+    }
+
     public boolean hasEnoughChunkSpace(int chunkIndex, int size){
         CheckIndex(chunkIndex);
         int lastIndex = chunkIndex + getMetaDataSize() + size - 1/*(start index)*/;
@@ -118,6 +145,9 @@ public class ChunkReader {
     }
 
     private void FillIntBuffer(int memoryIndex){
+        if(accessTracker != null){
+            accessTracker.access(memoryIndex, Integer.BYTES);
+        }
         for(int i = 0; i < Integer.BYTES; i++){
             intBuffer.put(i, memory[memoryIndex + i]);
         }
@@ -0,0 +1,129 @@
+package com.heapsimulation.base;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over chunks of a heap from index 0 to top index. Chunks can only be found by walking sizes from a known
+ * chunk start, so a sparse index with the start of every INDEX_STRIDE-th chunk is built by one walk, and splits are
+ * made at those starts. Each split reads memory with its own ChunkReader, so splits can run on different threads.
+ * Heap must not be changed while chunks are traversed.
+ */
+public class ChunkSpliterator implements Spliterator<HeapChunk> {
+    private final static int INDEX_STRIDE = 1024;
+
+    private final ChunkReader reader;
+    private final byte[] memory;
+    //chunk starts of chunk numbers 0, INDEX_STRIDE, 2 * INDEX_STRIDE, ... and top index at the end
+    private final int[] indexedChunkStarts;
+    private final long chunkCount;
+    private int chunkIndex;
+    private long chunkNumber;
+    private final int endEntry;
+
+    private ChunkSpliterator(byte[] memory, int[] indexedChunkStarts, long chunkCount, int chunkIndex, long chunkNumber,
+                             int endEntry){
+        this.memory = memory;
+        this.indexedChunkStarts = indexedChunkStarts;
+        this.chunkCount = chunkCount;
+        this.chunkIndex = chunkIndex;
+        this.chunkNumber = chunkNumber;
+        this.endEntry = endEntry;
+        reader = new ChunkReader(memory);
+    }
+
+    /**
+     * Walk the chunk sizes once to index chunk starts and create a spliterator over all chunks.
+     * @param memory heap memory
+     * @param topIndex
+     * @return
+     */
+    static ChunkSpliterator create(byte[] memory, int topIndex){
+        ChunkReader reader = new ChunkReader(memory);
+        int[] indexedChunkStarts = new int[16];
+        int entryCount = 0;
+        long chunkCount = 0;
+        int chunkIndex = 0;
+        while(chunkIndex < topIndex){
+            if(chunkCount % INDEX_STRIDE == 0){
+                if(entryCount == indexedChunkStarts.length){
+                    indexedChunkStarts = Arrays.copyOf(indexedChunkStarts, entryCount * 2);
+                }
+                indexedChunkStarts[entryCount] = chunkIndex;
+                entryCount++;
+            }
+            chunkIndex = reader.getNextChunkIndex(chunkIndex);
+            chunkCount++;
+        }
+
+        //top index ends the last range
+        indexedChunkStarts = Arrays.copyOf(indexedChunkStarts, entryCount + 1);
+        indexedChunkStarts[entryCount] = topIndex;
+        return new ChunkSpliterator(memory, indexedChunkStarts, chunkCount, 0, 0, entryCount);
+    }
+
+    /**
+     * Create a spliterator over the same chunks from the position of this spliterator, which shares the chunk index,
+     * so chunks of an unchanged heap can be traversed again without walking the sizes.
+     * @return
+     */
+    ChunkSpliterator copy(){
+        return new ChunkSpliterator(memory, indexedChunkStarts, chunkCount, chunkIndex, chunkNumber, endEntry);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super HeapChunk> action){
+        if(chunkNumber >= getChunkNumber(endEntry)){
+            return false;
+        }
+
+        action.accept(readChunk());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super HeapChunk> action){
+        long endChunkNumber = getChunkNumber(endEntry);
+        while(chunkNumber < endChunkNumber){
+            action.accept(readChunk());
+        }
+    }
+
+    @Override
+    public Spliterator<HeapChunk> trySplit(){
+        //first index entry after current chunk
+        int firstEntry = (int)(chunkNumber / INDEX_STRIDE) + 1;
+        int middleEntry = (firstEntry + endEntry) >>> 1;
+        if(middleEntry < firstEntry || middleEntry >= endEntry){
+            return null;
+        }
+
+        ChunkSpliterator prefix = new ChunkSpliterator(memory, indexedChunkStarts, chunkCount, chunkIndex, chunkNumber,
+                middleEntry);
+        chunkIndex = indexedChunkStarts[middleEntry];
+        chunkNumber = getChunkNumber(middleEntry);
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize(){
+        return getChunkNumber(endEntry) - chunkNumber;
+    }
+
+    @Override
+    public int characteristics(){
+        return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+    }
+
+    private HeapChunk readChunk(){
+        HeapChunk chunk = new HeapChunk(chunkIndex, reader.getRealDataSize(chunkIndex), reader.isFree(chunkIndex));
+        chunkIndex = chunk.getNextChunkIndex();
+        chunkNumber++;
+        return chunk;
+    }
+
+    private long getChunkNumber(int entry){
+        return entry == indexedChunkStarts.length - 1 ? chunkCount : (long)entry * INDEX_STRIDE;
+    }
+}
@@ -8,19 +8,29 @@ import java.nio.ByteBuffer;
  * size(metaData+data size of this chunk)(Integer bytes) + isFree(one byte flag)
  * Free Chunk Meta Data: allocated chunk meta data + forwardPointer(points to next free chunk of same size)(Integer bytes) +
  * backwardPointer(points to previous free chunk of same size)(Integer bytes)
- * Allocated Chunk Structure: allocated chunk meta data + data bytes
+ * Allocated Chunk Structure: allocated chunk meta data + data bytes(first Integer bytes keep handle slot of the chunk,
+ * second Integer bytes keep size requested by malloc)
  * Free Chunk Structure: free chunk meta data + unused bytes(size of free chunk)
  * Note: pointers in free chunks simulate doubly circular linked list
  */
 public class ChunkWriter {
     private byte[] memory;
     private ByteBuffer intBuffer;
+    private MemoryAccessTracker accessTracker = null;
 
     public ChunkWriter(byte[] memory){
         this.memory = memory;
         intBuffer = ByteBuffer.allocate(Integer.BYTES);
     }
 
+    /**
+     * Report every memory access to the tracker.
+     * @param accessTracker tracker, or null to stop reporting
+     */
+    public void setMemoryAccessTracker(MemoryAccessTracker accessTracker){
+        this.accessTracker = accessTracker;
+    }
+
     public void setRealDataSize(int chunkIndex, int realSize){
         CheckIndex(chunkIndex);
         int sizeIndex = chunkIndex + Integer.BYTES; //after prevSize bytes
@@ -37,6 +47,9 @@ public class ChunkWriter {
     public void setFreeStatus(int chunkIndex, boolean isFree){
         CheckIndex(chunkIndex);
         int flagIndex = chunkIndex + 2 * Integer.BYTES; //after prevSize and size bytes
+        if(accessTracker != null){
+            accessTracker.access(flagIndex, 1);
+        }
         memory[flagIndex] = (byte)(isFree ? 1 : 0);
     }
 
@@ -52,6 +65,18 @@ public class ChunkWriter {
         FillMemoryByInt(backwardPointerIndex, backwardIndex);
     }
 
+    public void setHandleSlot(int chunkIndex, int handleSlot){
+        CheckIndex(chunkIndex);
+        int handleSlotIndex = chunkIndex + ChunkReader.getMetaDataSize();  //first data bytes
+        FillMemoryByInt(handleSlotIndex, handleSlot);
+    }
+
+    public void setRequestedSize(int chunkIndex, int requestedSize){
+        CheckIndex(chunkIndex);
+        int requestedSizeIndex = chunkIndex + ChunkReader.getMetaDataSize() + Integer.BYTES;  //after handle slot bytes
+        FillMemoryByInt(requestedSizeIndex, requestedSize);
+    }
+
     private void CheckIndex(int chunkIndex){
         if(chunkIndex < 0 || chunkIndex > memory.length){
             String error = String.format("Chunk index must be between 0 and memory length (%d)", memory.length);
@@ -60,6 +85,9 @@ public class ChunkWriter {
     }
 
     private void FillMemoryByInt(int memoryIndex, int value){
+        if(accessTracker != null){
+            accessTracker.access(memoryIndex, Integer.BYTES);
+        }
         intBuffer.putInt(0, value);
         for(int i = 0; i < Integer.BYTES; i++){
             memory[memoryIndex + i] = intBuffer.get(i);
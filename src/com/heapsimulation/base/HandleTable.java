@@ -0,0 +1,131 @@
+package com.heapsimulation.base;
+
+import com.heapsimulation.bincollection.*;
+
+import java.util.Arrays;
+
+/**
+ * Map stable handles to chunk indices, so chunks can be relocated by heap compaction while callers keep their handles.
+ * A handle is the slot of the table in its lower int and the generation of the slot in its upper int. Chunks keep
+ * only their slot. Removing a slot advances its generation before the slot is reused, and a slot whose generation
+ * can not advance anymore is retired, so a stale handle never reaches the chunk of a later allocation.
+ */
+public class HandleTable {
+    public static final long NO_HANDLE = -1;
+    public static final int NO_SLOT = -1;
+    private final static int INITIAL_CAPACITY = 16;
+    private final static int MAX_SLOT_COUNT = 1 << 30;
+
+    private int[] chunkIndices;
+    private int[] generations;
+    private int[] freeSlots;
+    private int freeSlotCount = 0;
+    private int retiredSlotCount = 0;
+    private int usedCapacity = 0;
+
+    public HandleTable(){
+        chunkIndices = new int[INITIAL_CAPACITY];
+        generations = new int[INITIAL_CAPACITY];
+        freeSlots = new int[INITIAL_CAPACITY];
+    }
+
+    public HandleTable(HandleTable other){
+        chunkIndices = other.chunkIndices.clone();
+        generations = other.generations.clone();
+        freeSlots = other.freeSlots.clone();
+        freeSlotCount = other.freeSlotCount;
+        retiredSlotCount = other.retiredSlotCount;
+        usedCapacity = other.usedCapacity;
+    }
+
+    /**
+     * Create new handle for the chunk.
+     * @param chunkIndex
+     * @return Return the created handle.
+     */
+    public long add(int chunkIndex){
+        int slot;
+        if(freeSlotCount > 0){
+            freeSlotCount--;
+            slot = freeSlots[freeSlotCount];
+        }
+        else{
+            if(usedCapacity == MAX_SLOT_COUNT){
+                throw new IllegalStateException("Handle table is full");
+            }
+            if(usedCapacity == chunkIndices.length){
+                chunkIndices = Arrays.copyOf(chunkIndices, chunkIndices.length * 2);
+                generations = Arrays.copyOf(generations, generations.length * 2);
+            }
+            slot = usedCapacity;
+            usedCapacity++;
+        }
+
+        chunkIndices[slot] = chunkIndex;
+        return ((long)generations[slot] << Integer.SIZE) | slot;
+    }
+
+    /**
+     * Get slot of the handle, which is kept by its chunk.
+     * @param handle
+     * @return
+     */
+    public static int getSlot(long handle){
+        return (int)handle;
+    }
+
+    /**
+     * Get chunk index of the handle.
+     * @param handle
+     * @return Return chunk index of the handle, or NO_CHUNK if handle is not valid or has been removed.
+     */
+    public int getChunkIndex(long handle){
+        if(handle < 0){
+            return IBinCollection.NO_CHUNK;
+        }
+
+        int slot = getSlot(handle);
+        if(slot < 0 || slot >= usedCapacity || generations[slot] != (int)(handle >>> Integer.SIZE)){
+            return IBinCollection.NO_CHUNK;
+        }
+
+        return chunkIndices[slot];
+    }
+
+    /**
+     * Set chunk index of a used slot.
+     * @param slot
+     * @param chunkIndex
+     */
+    public void setChunkIndex(int slot, int chunkIndex){
+        chunkIndices[slot] = chunkIndex;
+    }
+
+    /**
+     * Remove the handle of a used slot, so the slot can be reused with the next generation.
+     * @param slot
+     */
+    public void remove(int slot){
+        if(slot < 0 || slot >= usedCapacity || chunkIndices[slot] == IBinCollection.NO_CHUNK){
+            return;
+        }
+
+        chunkIndices[slot] = IBinCollection.NO_CHUNK;
+        if(generations[slot] == Integer.MAX_VALUE){
+            //generation would wrap around and validate old handles again
+            retiredSlotCount++;
+            return;
+        }
+
+        generations[slot]++;
+        if(freeSlotCount == freeSlots.length){
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotCount] = slot;
+        freeSlotCount++;
+    }
+
+    public int getHandleCount(){
+        return usedCapacity - freeSlotCount - retiredSlotCount;
+    }
+}
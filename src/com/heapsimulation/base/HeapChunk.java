@@ -0,0 +1,48 @@
+package com.heapsimulation.base;
+
+/**
+ * Values of one chunk header, read at the time the chunk was visited.
+ */
+public class HeapChunk {
+    private final int chunkIndex;
+    private final int realDataSize;
+    private final boolean isFree;
+
+    public HeapChunk(int chunkIndex, int realDataSize, boolean isFree){
+        this.chunkIndex = chunkIndex;
+        this.realDataSize = realDataSize;
+        this.isFree = isFree;
+    }
+
+    public int getChunkIndex(){
+        return chunkIndex;
+    }
+
+    /**
+     * Get chunk size including internal fragmentation.
+     * @return
+     */
+    public int getRealDataSize(){
+        return realDataSize;
+    }
+
+    /**
+     * Get chunk size floored to chunk unit.
+     * @return
+     */
+    public int getUnitDataSize(){
+        return HeapUtility.floorToChunkUnit(realDataSize);
+    }
+
+    public boolean isFree(){
+        return isFree;
+    }
+
+    /**
+     * Get index of the chunk after this chunk, which is top index for the last chunk.
+     * @return
+     */
+    public int getNextChunkIndex(){
+        return chunkIndex + ChunkReader.getMetaDataSize() + realDataSize;
+    }
+}
@@ -0,0 +1,149 @@
+package com.heapsimulation.base;
+
+import java.util.TreeMap;
+
+/**
+ * Heap usage counters updated by MemoryHeap on every chunk change, so they can be read at any time without walking
+ * the heap. Sizes are real data sizes of chunks unless noted.
+ */
+public class HeapMetrics {
+    private final static int SMALL_FREE_CHUNK_UNITS = HeapUtility.SMALL_BINS_COUNT + 1;
+
+    private long liveChunkCount = 0;
+    private long liveBytes = 0;
+    private long requestedBytes = 0;
+    private long freeChunkCount = 0;
+    private long freeBytes = 0;
+    private long freeBinBytes = 0;
+    private int peakTopIndex = 0;
+    private long mallocCount = 0;
+    private long mallocFailureCount = 0;
+    private long freeCount = 0;
+    private long freeFailureCount = 0;
+
+    //free chunk counts by size floored to chunk unit, to find the largest free chunk
+    private final int[] smallFreeChunkCounts = new int[SMALL_FREE_CHUNK_UNITS];
+    private final TreeMap<Integer, Integer> largeFreeChunkCounts = new TreeMap<>();
+    private int largestSmallFreeChunkUnit = 0;
+
+    public HeapMetrics(){
+
+    }
+
+    /**
+     * Copy all counters of another metrics.
+     * @param other
+     */
+    public HeapMetrics(HeapMetrics other){
+        liveChunkCount = other.liveChunkCount;
+        liveBytes = other.liveBytes;
+        requestedBytes = other.requestedBytes;
+        freeChunkCount = other.freeChunkCount;
+        freeBytes = other.freeBytes;
+        freeBinBytes = other.freeBinBytes;
+        peakTopIndex = other.peakTopIndex;
+        mallocCount = other.mallocCount;
+        mallocFailureCount = other.mallocFailureCount;
+        freeCount = other.freeCount;
+        freeFailureCount = other.freeFailureCount;
+        System.arraycopy(other.smallFreeChunkCounts, 0, smallFreeChunkCounts, 0, SMALL_FREE_CHUNK_UNITS);
+        largeFreeChunkCounts.putAll(other.largeFreeChunkCounts);
+        largestSmallFreeChunkUnit = other.largestSmallFreeChunkUnit;
+    }
+
+    void mallocFinished(boolean succeeded){
+        mallocCount++;
+        if(!succeeded){
+            mallocFailureCount++;
+        }
+    }
+
+    void freeFinished(boolean succeeded){
+        freeCount++;
+        if(!succeeded){
+            freeFailureCount++;
+        }
+    }
+
+    void topIndexChanged(int topIndex){
+        if(topIndex > peakTopIndex){
+            peakTopIndex = topIndex;
+        }
+    }
+
+    void liveChunkAdded(int realSize, int requestedSize){
+        liveChunkCount++;
+        liveBytes += realSize;
+        requestedBytes += requestedSize;
+    }
+
+    void liveChunkRemoved(int realSize, int requestedSize){
+        liveChunkCount--;
+        liveBytes -= realSize;
+        requestedBytes -= requestedSize;
+    }
+
+    void freeChunkAdded(int realSize, boolean inBin){
+        freeChunkCount++;
+        freeBytes += realSize;
+        if(inBin){
+            freeBinBytes += realSize;
+        }
+
+        int unitCount = realSize / HeapUtility.CHUNK_UNIT;
+        if(unitCount < SMALL_FREE_CHUNK_UNITS){
+            smallFreeChunkCounts[unitCount]++;
+            if(unitCount > largestSmallFreeChunkUnit){
+                largestSmallFreeChunkUnit = unitCount;
+            }
+        }
+        else{
+            largeFreeChunkCounts.merge(unitCount, 1, Integer::sum);
+        }
+    }
+
+    void freeChunkRemoved(int realSize, boolean inBin){
+        freeChunkCount--;
+        freeBytes -= realSize;
+        if(inBin){
+            freeBinBytes -= realSize;
+        }
+
+        int unitCount = realSize / HeapUtility.CHUNK_UNIT;
+        if(unitCount < SMALL_FREE_CHUNK_UNITS){
+            smallFreeChunkCounts[unitCount]--;
+            while(largestSmallFreeChunkUnit > 0 && smallFreeChunkCounts[largestSmallFreeChunkUnit] == 0){
+                largestSmallFreeChunkUnit--;
+            }
+        }
+        else{
+            largeFreeChunkCounts.computeIfPresent(unitCount, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Get size of the largest free chunk under top, floored to chunk unit.
+     * @return
+     */
+    public int getLargestFreeChunkSize(){
+        if(!largeFreeChunkCounts.isEmpty()){
+            return largeFreeChunkCounts.lastKey() * HeapUtility.CHUNK_UNIT;
+        }
+
+        return largestSmallFreeChunkUnit * HeapUtility.CHUNK_UNIT;
+    }
+
+    public long getFreeBytes(){
+        return freeBytes;
+    }
+
+    /**
+     * Get copy of current counters.
+     * @return
+     */
+    public HeapMetricsSnapshot snapshot(){
+        return new HeapMetricsSnapshot(liveChunkCount, liveBytes, requestedBytes, freeChunkCount, freeBytes,
+                freeBinBytes, getLargestFreeChunkSize(), peakTopIndex, mallocCount, mallocFailureCount, freeCount,
+                freeFailureCount);
+    }
+}
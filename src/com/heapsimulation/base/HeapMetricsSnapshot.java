@@ -0,0 +1,121 @@
+package com.heapsimulation.base;
+
+/**
+ * Heap usage counters at one moment. Sizes are real data sizes of chunks unless noted.
+ */
+public class HeapMetricsSnapshot {
+    private final long liveChunkCount;
+    private final long liveBytes;
+    private final long requestedBytes;
+    private final long freeChunkCount;
+    private final long freeBytes;
+    private final long freeBinBytes;
+    private final int largestFreeChunkSize;
+    private final int peakTopIndex;
+    private final long mallocCount;
+    private final long mallocFailureCount;
+    private final long freeCount;
+    private final long freeFailureCount;
+
+    public HeapMetricsSnapshot(long liveChunkCount, long liveBytes, long requestedBytes, long freeChunkCount,
+                               long freeBytes, long freeBinBytes, int largestFreeChunkSize, int peakTopIndex,
+                               long mallocCount, long mallocFailureCount, long freeCount, long freeFailureCount){
+        this.liveChunkCount = liveChunkCount;
+        this.liveBytes = liveBytes;
+        this.requestedBytes = requestedBytes;
+        this.freeChunkCount = freeChunkCount;
+        this.freeBytes = freeBytes;
+        this.freeBinBytes = freeBinBytes;
+        this.largestFreeChunkSize = largestFreeChunkSize;
+        this.peakTopIndex = peakTopIndex;
+        this.mallocCount = mallocCount;
+        this.mallocFailureCount = mallocFailureCount;
+        this.freeCount = freeCount;
+        this.freeFailureCount = freeFailureCount;
+    }
+
+    public long getLiveChunkCount(){
+        return liveChunkCount;
+    }
+
+    /**
+     * Get data size of allocated chunks.
+     * @return
+     */
+    public long getLiveBytes(){
+        return liveBytes;
+    }
+
+    /**
+     * Get sum of sizes requested by malloc for allocated chunks.
+     * @return
+     */
+    public long getRequestedBytes(){
+        return requestedBytes;
+    }
+
+    /**
+     * Get bytes of allocated chunks which were not requested, from rounding to chunk unit and from free chunk
+     * remains too small to split.
+     * @return
+     */
+    public long getInternalFragmentationBytes(){
+        return liveBytes - requestedBytes;
+    }
+
+    public long getFreeChunkCount(){
+        return freeChunkCount;
+    }
+
+    /**
+     * Get data size of free chunks under top index.
+     * @return
+     */
+    public long getFreeBytes(){
+        return freeBytes;
+    }
+
+    /**
+     * Get data size of free chunks which are in bins.
+     * @return
+     */
+    public long getFreeBinBytes(){
+        return freeBinBytes;
+    }
+
+    /**
+     * Get data size of the largest free chunk under top index, floored to chunk unit.
+     * @return
+     */
+    public int getLargestFreeChunkSize(){
+        return largestFreeChunkSize;
+    }
+
+    /**
+     * Get part of free bytes which is not in the largest free chunk, between 0 and 1.
+     * @return
+     */
+    public double getExternalFragmentation(){
+        return freeBytes == 0 ? 0 : 1 - (double)largestFreeChunkSize / freeBytes;
+    }
+
+    public int getPeakTopIndex(){
+        return peakTopIndex;
+    }
+
+    public long getMallocCount(){
+        return mallocCount;
+    }
+
+    public long getMallocFailureCount(){
+        return mallocFailureCount;
+    }
+
+    public long getFreeCount(){
+        return freeCount;
+    }
+
+    public long getFreeFailureCount(){
+        return freeFailureCount;
+    }
+}
@@ -0,0 +1,73 @@
+package com.heapsimulation.base;
+
+import com.heapsimulation.binmanaging.*;
+
+/**
+ * State of a heap at one moment, taken by MemoryHeap.snapshot. Only memory under top index (and the prev size of top
+ * chunk) is copied, because bytes after it are not used. A snapshot is not changed by the heap or by restoring it,
+ * so it can be restored many times and from many threads.
+ */
+public class HeapSnapshot {
+    private final byte[] memoryPrefix;
+    private final int memoryLength;
+    private final int topIndex;
+    private final IBinManager binManager;
+    private final HandleTable handles;
+    private final HeapMetrics metrics;
+    private final int compactionIndex;
+
+    HeapSnapshot(byte[] memoryPrefix, int memoryLength, int topIndex, IBinManager binManager, HandleTable handles,
+                 HeapMetrics metrics, int compactionIndex){
+        this.memoryPrefix = memoryPrefix;
+        this.memoryLength = memoryLength;
+        this.topIndex = topIndex;
+        this.binManager = binManager;
+        this.handles = handles;
+        this.metrics = metrics;
+        this.compactionIndex = compactionIndex;
+    }
+
+    byte[] getMemoryPrefix(){
+        return memoryPrefix;
+    }
+
+    /**
+     * Get memory length of the heap, heaps restoring the snapshot must have the same length.
+     * @return
+     */
+    public int getMemoryLength(){
+        return memoryLength;
+    }
+
+    public int getTopIndex(){
+        return topIndex;
+    }
+
+    /**
+     * Get a new copy of bin manager state, so restored heaps do not share it.
+     * @return
+     */
+    IBinManager copyBinManager(){
+        return binManager.copy();
+    }
+
+    HandleTable copyHandles(){
+        return new HandleTable(handles);
+    }
+
+    HeapMetrics copyMetrics(){
+        return new HeapMetrics(metrics);
+    }
+
+    int getCompactionIndex(){
+        return compactionIndex;
+    }
+
+    /**
+     * Get usage counters of the heap when snapshot was taken.
+     * @return
+     */
+    public HeapMetricsSnapshot getMetricsSnapshot(){
+        return metrics.snapshot();
+    }
+}
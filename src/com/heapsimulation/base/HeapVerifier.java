@@ -0,0 +1,164 @@
+package com.heapsimulation.base;
+
+import com.heapsimulation.binmanaging.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Check heap consistency: boundary tags of all chunks under top, free flags, merging of adjacent free chunks, and
+ * the free lists of bins, which must be symmetric circular lists holding exactly the free chunks of supported sizes.
+ */
+public final class HeapVerifier {
+    private final static int MAX_PROBLEMS = 20;
+
+    /**
+     * Check heap state of a snapshot. Snapshots are not changed by heaps, so it can be called on any thread.
+     * @param snapshot
+     * @return Return found problems, or an empty list if heap state is consistent.
+     */
+    public static List<String> verify(HeapSnapshot snapshot){
+        return verify(snapshot.getMemoryPrefix(), snapshot.getTopIndex(), snapshot.copyBinManager());
+    }
+
+    static List<String> verify(byte[] memory, int topIndex, IBinManager binManager){
+        List<String> problems = new ArrayList<>();
+        ChunkReader reader = new ChunkReader(memory);
+        BitSet chunkStarts = new BitSet();
+        BitSet binnedFreeChunks = new BitSet();
+
+        //walk boundary tags
+        int chunkIndex = 0;
+        int prevRealSize = 0;
+        boolean prevFree = false;
+        while(chunkIndex < topIndex && problems.size() < MAX_PROBLEMS){
+            if(chunkIndex + ChunkReader.getMetaDataSize() > topIndex){
+                problems.add(String.format("Chunk %d header overlaps top index %d", chunkIndex, topIndex));
+                break;
+            }
+
+            chunkStarts.set(chunkIndex);
+            if(chunkIndex > 0 && reader.getPrevRealDataSize(chunkIndex) != prevRealSize){
+                problems.add(String.format("Chunk %d prev size is %d, previous chunk size is %d",
+                        chunkIndex, reader.getPrevRealDataSize(chunkIndex), prevRealSize));
+            }
+
+            byte freeFlag = memory[chunkIndex + 2 * Integer.BYTES];
+            if(freeFlag != 0 && freeFlag != 1){
+                problems.add(String.format("Chunk %d free flag is %d", chunkIndex, freeFlag));
+            }
+            boolean isFree = freeFlag != 0;
+            if(isFree && prevFree){
+                problems.add(String.format("Free chunk %d is not merged with previous free chunk", chunkIndex));
+            }
+
+            int realSize = reader.getRealDataSize(chunkIndex);
+            if(isFree && binManager.isSupported(HeapUtility.floorToChunkUnit(realSize))){
+                binnedFreeChunks.set(chunkIndex);
+            }
+
+            int nextChunkIndex = reader.getNextChunkIndex(chunkIndex);
+            if(realSize < HeapUtility.CHUNK_UNIT || nextChunkIndex > topIndex){
+                problems.add(String.format("Chunk %d size %d is out of heap", chunkIndex, realSize));
+                break;
+            }
+
+            prevRealSize = realSize;
+            prevFree = isFree;
+            chunkIndex = nextChunkIndex;
+        }
+        if(chunkIndex == topIndex){
+            if(prevFree){
+                problems.add("Last chunk before top is free");
+            }
+            if(topIndex > 0 && topIndex + Integer.BYTES <= memory.length
+                    && reader.getPrevRealDataSize(topIndex) != prevRealSize){
+                problems.add(String.format("Top prev size is %d, last chunk size is %d",
+                        reader.getPrevRealDataSize(topIndex), prevRealSize));
+            }
+        }
+        if(!problems.isEmpty()){
+            //bin lists can not be checked safely without valid chunk starts
+            return problems;
+        }
+
+        //walk bin lists, bins of several sizes may share one list
+        Set<Integer> checkedListStarts = new HashSet<>();
+        BitSet listedChunks = new BitSet();
+        for(int chunkUnitSize = HeapUtility.CHUNK_UNIT; chunkUnitSize <= HeapUtility.SMALL_BINS_COUNT * HeapUtility.CHUNK_UNIT
+                && problems.size() < MAX_PROBLEMS; chunkUnitSize += HeapUtility.CHUNK_UNIT){
+            if(!binManager.isSupported(chunkUnitSize)){
+                continue;
+            }
+            int startChunkIndex = binManager.getStartFreeChunkIndex(chunkUnitSize);
+            if(startChunkIndex == IBinManager.NO_CHUNK || !checkedListStarts.add(startChunkIndex)){
+                continue;
+            }
+            boolean sharedList = isSharedList(binManager, chunkUnitSize, startChunkIndex);
+            verifyList(reader, startChunkIndex, sharedList ? -1 : chunkUnitSize, chunkStarts, listedChunks, problems);
+        }
+
+        if(problems.isEmpty() && !listedChunks.equals(binnedFreeChunks)){
+            BitSet missingChunks = (BitSet)binnedFreeChunks.clone();
+            missingChunks.andNot(listedChunks);
+            BitSet extraChunks = (BitSet)listedChunks.clone();
+            extraChunks.andNot(binnedFreeChunks);
+            problems.add(String.format("Free chunks %s are not in bins, bins have chunks %s which are not free",
+                    missingChunks, extraChunks));
+        }
+
+        return problems;
+    }
+
+    /**
+     * Check whether the list of a bin is the list of another bin size too.
+     */
+    private static boolean isSharedList(IBinManager binManager, int chunkUnitSize, int startChunkIndex){
+        int otherUnitSize = chunkUnitSize == HeapUtility.CHUNK_UNIT ? 2 * HeapUtility.CHUNK_UNIT : HeapUtility.CHUNK_UNIT;
+        return binManager.isSupported(otherUnitSize) && binManager.getStartFreeChunkIndex(otherUnitSize) == startChunkIndex;
+    }
+
+    /**
+     * Walk one circular list forwardly and check its chunks and backward pointers.
+     * @param binUnitSize unit size of all chunks of list, or -1 if list holds several sizes
+     */
+    private static void verifyList(ChunkReader reader, int startChunkIndex, int binUnitSize, BitSet chunkStarts,
+                                   BitSet listedChunks, List<String> problems){
+        int freeChunkIndex = startChunkIndex;
+        do{
+            if(freeChunkIndex < 0 || !chunkStarts.get(freeChunkIndex)){
+                problems.add(String.format("Bin list of %d has %d which is not a chunk start", startChunkIndex, freeChunkIndex));
+                return;
+            }
+            if(listedChunks.get(freeChunkIndex)){
+                problems.add(String.format("Chunk %d is in bin lists more than once", freeChunkIndex));
+                return;
+            }
+            listedChunks.set(freeChunkIndex);
+
+            if(!reader.isFree(freeChunkIndex)){
+                problems.add(String.format("Allocated chunk %d is in a bin list", freeChunkIndex));
+            }
+            if(binUnitSize > 0 && reader.getUnitDataSize(freeChunkIndex) != binUnitSize){
+                problems.add(String.format("Chunk %d with size %d is in bin of %d",
+                        freeChunkIndex, reader.getUnitDataSize(freeChunkIndex), binUnitSize));
+            }
+
+            int forwardIndex = reader.getForwardFreeIndex(freeChunkIndex);
+            if(forwardIndex < 0 || !chunkStarts.get(forwardIndex)){
+                problems.add(String.format("Chunk %d forward pointer %d is not a chunk start", freeChunkIndex, forwardIndex));
+                return;
+            }
+            if(reader.getBackwardFreeIndex(forwardIndex) != freeChunkIndex){
+                problems.add(String.format("Chunk %d backward pointer is %d instead of %d",
+                        forwardIndex, reader.getBackwardFreeIndex(forwardIndex), freeChunkIndex));
+                return;
+            }
+            freeChunkIndex = forwardIndex;
+        }
+        while(freeChunkIndex != startChunkIndex);
+    }
+}
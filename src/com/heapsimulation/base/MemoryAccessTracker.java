@@ -0,0 +1,180 @@
+package com.heapsimulation.base;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Count distinct cache lines and pages of heap memory touched by ChunkReader and ChunkWriter during each heap
+ * operation, and optionally pass every touched line to a cache model. Accesses between operations, such as printing,
+ * are not counted.
+ */
+public class MemoryAccessTracker {
+    public final static int DEFAULT_CACHE_LINE_SIZE = 64;
+    public final static int DEFAULT_PAGE_SIZE = 4096;
+
+    private final int cacheLineSize;
+    private final int pageSize;
+    private final SetAssociativeCache cache;
+
+    //operation number which last touched each line and page, so marks do not need to be cleared between operations
+    private int[] lineOperations = new int[0];
+    private int[] pageOperations = new int[0];
+    private int operationNumber = 0;
+    private boolean inOperation = false;
+
+    private int operationLineCount = 0;
+    private int operationPageCount = 0;
+    private long operationCount = 0;
+    private long totalLineCount = 0;
+    private long totalPageCount = 0;
+    private int maxLineCount = 0;
+    private int maxPageCount = 0;
+
+    public MemoryAccessTracker(){
+        this(DEFAULT_CACHE_LINE_SIZE, DEFAULT_PAGE_SIZE, null);
+    }
+
+    /**
+     * @param cacheLineSize
+     * @param pageSize
+     * @param cache cache model which receives every touched line, or null
+     */
+    public MemoryAccessTracker(int cacheLineSize, int pageSize, SetAssociativeCache cache){
+        if(cacheLineSize <= 0 || pageSize <= 0){
+            throw new IllegalArgumentException("Cache line and page sizes must be positive");
+        }
+
+        this.cacheLineSize = cacheLineSize;
+        this.pageSize = pageSize;
+        this.cache = cache;
+    }
+
+    public void beginOperation(){
+        if(operationNumber == Integer.MAX_VALUE){
+            //restart marks instead of overflowing
+            Arrays.fill(lineOperations, 0);
+            Arrays.fill(pageOperations, 0);
+            operationNumber = 0;
+        }
+
+        operationNumber++;
+        operationLineCount = 0;
+        operationPageCount = 0;
+        inOperation = true;
+    }
+
+    public void endOperation(){
+        inOperation = false;
+        operationCount++;
+        totalLineCount += operationLineCount;
+        totalPageCount += operationPageCount;
+        maxLineCount = Math.max(maxLineCount, operationLineCount);
+        maxPageCount = Math.max(maxPageCount, operationPageCount);
+    }
+
+    /**
+     * Record an access to memory bytes.
+     * @param memoryIndex index of the first byte
+     * @param length count of bytes
+     */
+    public void access(int memoryIndex, int length){
+        if(!inOperation){
+            return;
+        }
+
+        int lastIndex = memoryIndex + length - 1;
+        for(int line = memoryIndex / cacheLineSize; line <= lastIndex / cacheLineSize; line++){
+            if(line >= lineOperations.length){
+                lineOperations = Arrays.copyOf(lineOperations, Math.max(line + 1, lineOperations.length * 2));
+            }
+            if(lineOperations[line] != operationNumber){
+                lineOperations[line] = operationNumber;
+                operationLineCount++;
+            }
+            if(cache != null){
+                cache.access(line);
+            }
+        }
+
+        for(int page = memoryIndex / pageSize; page <= lastIndex / pageSize; page++){
+            if(page >= pageOperations.length){
+                pageOperations = Arrays.copyOf(pageOperations, Math.max(page + 1, pageOperations.length * 2));
+            }
+            if(pageOperations[page] != operationNumber){
+                pageOperations[page] = operationNumber;
+                operationPageCount++;
+            }
+        }
+    }
+
+    /**
+     * Reset counters and the cache model, to track a new heap.
+     */
+    public void reset(){
+        Arrays.fill(lineOperations, 0);
+        Arrays.fill(pageOperations, 0);
+        operationNumber = 0;
+        inOperation = false;
+        operationCount = 0;
+        totalLineCount = 0;
+        totalPageCount = 0;
+        maxLineCount = 0;
+        maxPageCount = 0;
+        if(cache != null){
+            cache.clear();
+        }
+    }
+
+    /**
+     * Get count of distinct cache lines touched by the last finished operation.
+     * @return
+     */
+    public int getLastOperationLineCount(){
+        return operationLineCount;
+    }
+
+    /**
+     * Get count of distinct pages touched by the last finished operation.
+     * @return
+     */
+    public int getLastOperationPageCount(){
+        return operationPageCount;
+    }
+
+    public long getOperationCount(){
+        return operationCount;
+    }
+
+    public long getTotalLineCount(){
+        return totalLineCount;
+    }
+
+    public long getTotalPageCount(){
+        return totalPageCount;
+    }
+
+    public int getMaxLineCount(){
+        return maxLineCount;
+    }
+
+    public int getMaxPageCount(){
+        return maxPageCount;
+    }
+
+    /**
+     * Print distinct lines and pages per operation and cache misses.
+     * @param out writer to print to, it is not flushed
+     */
+    public void print(PrintWriter out){
+        double meanLineCount = operationCount == 0 ? 0 : (double)totalLineCount / operationCount;
+        double meanPageCount = operationCount == 0 ? 0 : (double)totalPageCount / operationCount;
+        out.println(String.format("Memory accesses of %d operations: cache lines %.2f per operation (max %d), " +
+                "pages %.2f per operation (max %d)", operationCount, meanLineCount, maxLineCount, meanPageCount, maxPageCount));
+        if(cache != null){
+            long accessCount = cache.getAccessCount();
+            double missRate = accessCount == 0 ? 0 : 100.0 * cache.getMissCount() / accessCount;
+            out.println(String.format("Cache model: %d line accesses, %d misses (%.2f%%)",
+                    accessCount, cache.getMissCount(), missRate));
+        }
+    }
+}
@@ -2,16 +2,39 @@ package com.heapsimulation.base;
 
 import com.heapsimulation.bincollection.*;
 import com.heapsimulation.binmanaging.*;
+import com.heapsimulation.events.*;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class MemoryHeap {
 
-    private final static int DEFAULT_HEAP_SIZE = 512;
+    public final static int DEFAULT_HEAP_SIZE = 512;
+    private final static String NO_ALLOCATED_CHUNK_MESSAGE = "No allocated chunk exist";
+    private final static String NO_BIN_MESSAGE = "No bin exist";
 
     private byte[] memory;
     private int topIndex = 0;
     private IBinManager binManager;
     private ChunkReader reader;
     private ChunkWriter writer;
+    private int lastAllocatedChunkIndex = IBinCollection.NO_CHUNK;
+    private final RemoteFreeQueue remoteFreeQueue = new RemoteFreeQueue();
+    private final LongConsumer remoteFreeConsumer = this::freeRemoteChunk;
+    private HandleTable handles = new HandleTable();
+    private int compactionIndex = 0;
+    private HeapMetrics metrics = new HeapMetrics();
+    private IHeapEventListener eventListener = null;
+    private MemoryAccessTracker accessTracker = null;
+    //count of changes to chunk boundaries, indexed chunks are reused by chunks() while it has not changed
+    private long chunkModificationCount = 0;
+    private long indexedChunkModificationCount = 0;
+    private ChunkSpliterator indexedChunks = null;
 
     public MemoryHeap(IBinManager binManager){
         this(DEFAULT_HEAP_SIZE, binManager);
@@ -31,20 +54,99 @@ public class MemoryHeap {
         writer.setPrevRealDataSize(0, 0);
     }
 
+    /**
+     * Create a heap with the state of the snapshot.
+     * @param snapshot
+     */
+    public MemoryHeap(HeapSnapshot snapshot){
+        this(snapshot.getMemoryLength(), snapshot.copyBinManager());
+        restoreChunks(snapshot);
+    }
+
     public int getTopIndex(){
         return topIndex;
     }
 
+    public int getMemoryLength(){
+        return memory.length;
+    }
+
+    /**
+     * Get total real data size of free chunks under top index.
+     * @return
+     */
+    public int getFreeChunksSize(){
+        return (int)metrics.getFreeBytes();
+    }
+
+    /**
+     * Get current usage and fragmentation counters. They are kept up to date by every operation, so heap is not walked.
+     * @return
+     */
+    public HeapMetricsSnapshot getMetricsSnapshot(){
+        return metrics.snapshot();
+    }
+
+    /**
+     * Set the listener of chunk changes. Events are only built when a listener is set.
+     * @param eventListener listener, or null to remove the current listener
+     */
+    public void setEventListener(IHeapEventListener eventListener){
+        this.eventListener = eventListener;
+    }
+
+    /**
+     * Count cache lines and pages of memory touched by each malloc, free and compaction step.
+     * @param accessTracker tracker, or null to stop counting
+     */
+    public void setMemoryAccessTracker(MemoryAccessTracker accessTracker){
+        this.accessTracker = accessTracker;
+        reader.setMemoryAccessTracker(accessTracker);
+        writer.setMemoryAccessTracker(accessTracker);
+    }
+
+    /**
+     * Get index of the chunk dedicated by the last successful malloc, or NO_CHUNK if the last malloc failed.
+     * @return
+     */
+    public int getLastAllocatedChunkIndex(){
+        return lastAllocatedChunkIndex;
+    }
+
     /**
      * Allocate the requested size in heap..
      * @param size requested size
      * @return Return true if succeeded, return false otherwise.
      */
     public boolean malloc(int size)  {
-        if(size <= 0){
+        if(accessTracker != null){
+            accessTracker.beginOperation();
+        }
+
+        boolean succeeded = allocate(size);
+        metrics.mallocFinished(succeeded);
+        if(succeeded){
+            writer.setRequestedSize(lastAllocatedChunkIndex, size);
+            metrics.liveChunkAdded(reader.getRealDataSize(lastAllocatedChunkIndex), size);
+        }
+
+        if(accessTracker != null){
+            accessTracker.endOperation();
+        }
+        return succeeded;
+    }
+
+    private boolean allocate(int size){
+        lastAllocatedChunkIndex = IBinCollection.NO_CHUNK;
+        if(size <= 0 || size > memory.length){
+            //bigger sizes can not fit and would overflow when ceiled to chunk unit
             return false;
         }
 
+        if(!remoteFreeQueue.isEmpty()){
+            drainRemoteFrees();
+        }
+
         int unitSize = HeapUtility.ceilToChunkUnit(size);
         boolean binSizeSupported = binManager.isSupported(unitSize);
         int freeChunkIndex = -1;
@@ -61,6 +163,7 @@ public class MemoryHeap {
             if(isFree && unitSize <= chunkSize && nextChunkIndex < memory.length + 1){
                 //valid chunk index found
                 allocateFreeChunk(freeChunkIndex, unitSize);
+                lastAllocatedChunkIndex = freeChunkIndex;
                 return true;
             }
             else{
@@ -71,25 +174,89 @@ public class MemoryHeap {
             //no suitable free block found, allocate from top
             boolean enoughSpace = reader.hasEnoughChunkSpace(topIndex, unitSize);
             if(enoughSpace){
+                lastAllocatedChunkIndex = topIndex;
+                if(eventListener != null){
+                    eventListener.onMallocFromTop(topIndex, unitSize);
+                }
                 allocateChunk(topIndex, unitSize);
                 topIndex = reader.getNextChunkIndex(topIndex);
-                if(topIndex < memory.length){
-                    //set prev size for future next chunk
-                    writer.setPrevRealDataSize(topIndex, unitSize);
-                }
+                //set prev size for future next chunk
+                setPrevRealDataSizeIfFits(topIndex, unitSize);
+                metrics.topIndexChanged(topIndex);
             }
 
             return enoughSpace;
         }
     }
 
+    /**
+     * Allocate the requested size in heap and return a handle which stays valid while heap is compacted.
+     * @param size requested size
+     * @return Return the handle of allocated chunk if succeeded, return NO_HANDLE otherwise.
+     */
+    public long mallocHandle(int size){
+        if(!malloc(size)){
+            return HandleTable.NO_HANDLE;
+        }
+
+        long handle = handles.add(lastAllocatedChunkIndex);
+        writer.setHandleSlot(lastAllocatedChunkIndex, HandleTable.getSlot(handle));
+        return handle;
+    }
+
+    /**
+     * Free the chunk of the handle.
+     * @param handle handle returned by mallocHandle
+     * @return Return true if handle was valid, return false otherwise.
+     */
+    public boolean freeHandle(long handle){
+        if(accessTracker != null){
+            accessTracker.beginOperation();
+        }
+
+        int chunkIndex = handles.getChunkIndex(handle);
+        boolean succeeded = chunkIndex != IBinCollection.NO_CHUNK;
+        if(succeeded){
+            mergeFreeChunksAndAddToBin(chunkIndex);
+        }
+        metrics.freeFinished(succeeded);
+
+        if(accessTracker != null){
+            accessTracker.endOperation();
+        }
+        return succeeded;
+    }
+
+    /**
+     * Get current chunk index of the handle. The index is only valid until the next compaction step.
+     * @param handle
+     * @return Return chunk index of the handle, or NO_CHUNK if handle is not valid.
+     */
+    public int getHandleChunkIndex(long handle){
+        return handles.getChunkIndex(handle);
+    }
+
     /**
      * Free the first free chunk with requested size.
      * @param size requested size
      * @return Return true if any proper chunk was found, return false otherwise.
      */
     public boolean free(int size){
-        if(size <= 0 || topIndex <= 0){
+        if(accessTracker != null){
+            accessTracker.beginOperation();
+        }
+
+        boolean succeeded = freeAllocatedChunk(size);
+        metrics.freeFinished(succeeded);
+
+        if(accessTracker != null){
+            accessTracker.endOperation();
+        }
+        return succeeded;
+    }
+
+    private boolean freeAllocatedChunk(int size){
+        if(size <= 0 || size > memory.length || topIndex <= 0){
             return false;
         }
         size = HeapUtility.ceilToChunkUnit(size);
@@ -114,7 +281,110 @@ public class MemoryHeap {
         return false;
     }
 
+    /**
+     * Queue the chunk of a handle to be freed by the owner thread at its next malloc. Safe to call from any thread,
+     * the bins are not touched by the caller. Handles are checked when drained, so a handle which has been freed
+     * already is ignored instead of freeing another chunk.
+     * @param handle handle returned by mallocHandle on the owner thread
+     */
+    public void freeRemotely(long handle){
+        remoteFreeQueue.push(handle);
+    }
+
+    /**
+     * Free all chunks queued by freeRemotely. Must only be called by the owner thread.
+     * @return Return count of drained handles.
+     */
+    public int drainRemoteFrees(){
+        return remoteFreeQueue.drain(remoteFreeConsumer);
+    }
+
+    /**
+     * Copy the heap state as it is, so it can be restored later by this heap or by new heaps. The heap is not changed,
+     * so pending remote frees are not part of the snapshot, call drainRemoteFrees first to include them.
+     * Memory is copied up to top index only, so snapshots of big heaps with low top are cheap.
+     * @return
+     */
+    public HeapSnapshot snapshot(){
+        //top chunk keeps prev size of the last chunk
+        int prefixLength = Math.min(memory.length, topIndex + Integer.BYTES);
+        return new HeapSnapshot(Arrays.copyOf(memory, prefixLength), memory.length, topIndex, binManager.copy(),
+                new HandleTable(handles), new HeapMetrics(metrics), compactionIndex);
+    }
+
+    /**
+     * Replace the heap state with the snapshot state. Pending remote frees are discarded, because their handles belong
+     * to the replaced state. The event listener is kept.
+     * @param snapshot snapshot of a heap with the same memory length
+     */
+    public void restore(HeapSnapshot snapshot){
+        if(snapshot.getMemoryLength() != memory.length){
+            throw new IllegalArgumentException("Snapshot memory length must be the same as heap memory length");
+        }
+
+        remoteFreeQueue.drain(handle -> { });
+        binManager = snapshot.copyBinManager();
+        restoreChunks(snapshot);
+    }
+
+    /**
+     * Replace memory, handles, metrics and compaction state with the snapshot state. Bin manager is set by caller.
+     * @param snapshot
+     */
+    private void restoreChunks(HeapSnapshot snapshot){
+        chunkModificationCount++;
+        byte[] memoryPrefix = snapshot.getMemoryPrefix();
+        System.arraycopy(memoryPrefix, 0, memory, 0, memoryPrefix.length);
+        topIndex = snapshot.getTopIndex();
+        handles = snapshot.copyHandles();
+        metrics = snapshot.copyMetrics();
+        compactionIndex = snapshot.getCompactionIndex();
+        lastAllocatedChunkIndex = IBinCollection.NO_CHUNK;
+    }
+
+    /**
+     * Make the heap empty with a new bin manager, so its memory can be reused by another simulation. Pending remote
+     * frees are discarded and the event listener and memory access tracker are removed.
+     * @param binManager
+     */
+    public void reset(IBinManager binManager){
+        remoteFreeQueue.drain(handle -> { });
+        this.binManager = binManager;
+        chunkModificationCount++;
+        topIndex = 0;
+        lastAllocatedChunkIndex = IBinCollection.NO_CHUNK;
+        handles = new HandleTable();
+        metrics = new HeapMetrics();
+        compactionIndex = 0;
+        setEventListener(null);
+        setMemoryAccessTracker(null);
+
+        //set prev size for future first chunk
+        writer.setPrevRealDataSize(0, 0);
+    }
+
+    /**
+     * Create an independent heap with the same state, which can be used by another thread.
+     * @return
+     */
+    public MemoryHeap fork(){
+        return new MemoryHeap(snapshot());
+    }
+
+    private void freeRemoteChunk(long handle){
+        //handles of freed chunks are not valid anymore, so only chunk starts of live allocations are freed
+        int chunkIndex = handles.getChunkIndex(handle);
+        boolean succeeded = chunkIndex != IBinCollection.NO_CHUNK;
+        if(succeeded){
+            mergeFreeChunksAndAddToBin(chunkIndex);
+        }
+        metrics.freeFinished(succeeded);
+    }
+
     private  void allocateFreeChunk(int freeChunkIndex, int requestedUnitSize){
+        if(eventListener != null){
+            eventListener.onMallocFromBin(freeChunkIndex, requestedUnitSize, reader.getUnitDataSize(freeChunkIndex));
+        }
         removeFreeChunk(freeChunkIndex);
 
         //try to make remain of free chunk as free chunk
@@ -123,7 +393,15 @@ public class MemoryHeap {
         if(remainSize >= HeapUtility.CHUNK_UNIT){
             allocateChunk(freeChunkIndex, requestedUnitSize);
             int remainFreeChunkIndex = reader.getNextChunkIndex(freeChunkIndex);
+            writer.setPrevRealDataSize(remainFreeChunkIndex, requestedUnitSize);
+            if(eventListener != null){
+                eventListener.onSplit(freeChunkIndex, requestedUnitSize, remainFreeChunkIndex, remainSize);
+            }
             freeChunk(remainFreeChunkIndex, remainSize);
+
+            //update next chunk of remain free chunk
+            int nextChunkIndex = reader.getNextChunkIndex(remainFreeChunkIndex);
+            setPrevRealDataSizeIfFits(nextChunkIndex, remainSize);
         }
         else{
             //allocate chunk with it's internal fragmentation (if exists)
@@ -132,8 +410,15 @@ public class MemoryHeap {
     }
 
     private void removeFreeChunk(int chunkIndex){
-        int previousFreeChunk = reader.getBackwardFreeIndex(chunkIndex);
         int chunkUnitSize = reader.getUnitDataSize(chunkIndex);
+        boolean isSizeSupported = binManager.isSupported(chunkUnitSize);
+        metrics.freeChunkRemoved(reader.getRealDataSize(chunkIndex), isSizeSupported);
+        if(!isSizeSupported){
+            //chunk has not been added to any bin
+            return;
+        }
+
+        int previousFreeChunk = reader.getBackwardFreeIndex(chunkIndex);
 
         if(previousFreeChunk == chunkIndex){
             //remove the only free chunk from bin
@@ -153,23 +438,43 @@ public class MemoryHeap {
         }
     }
 
+    /**
+     * Set prev size of a chunk which may be the top chunk. Top chunk may have no space for its prev size at the end
+     * of memory, but then no chunk can be allocated there either.
+     */
+    private void setPrevRealDataSizeIfFits(int chunkIndex, int prevRealSize){
+        if(chunkIndex + Integer.BYTES <= memory.length){
+            writer.setPrevRealDataSize(chunkIndex, prevRealSize);
+        }
+    }
+
     private void allocateChunk(int chunkIndex, int size){
+        chunkModificationCount++;
         writer.setFreeStatus(chunkIndex, false);
         writer.setRealDataSize(chunkIndex, size);
+        writer.setHandleSlot(chunkIndex, HandleTable.NO_SLOT);
     }
 
     /**
      * Join the adjacent free chunks to make bigger free chunk and add the first or merged free chunk to bin.
-     * @param chunkIndex Index of the free chunk
+     * @param chunkIndex Index of the allocated chunk which is going to be free
      */
     private void mergeFreeChunksAndAddToBin(int chunkIndex){
+        chunkModificationCount++;
         boolean isFreeChunk;
         int chosenIndex = chunkIndex;
-        int adjacentChunkIndex = chosenIndex;
+        int adjacentChunkIndex;
         int adjacentCount = 0;
         int joinedChunksSize = reader.getRealDataSize(chosenIndex);
 
-        removeFreeChunk(chosenIndex);
+        int handleSlot = reader.getHandleSlot(chosenIndex);
+        if(handleSlot != HandleTable.NO_SLOT){
+            handles.remove(handleSlot);
+        }
+        metrics.liveChunkRemoved(joinedChunksSize, reader.getRequestedSize(chosenIndex));
+        if(eventListener != null){
+            eventListener.onFree(chosenIndex, joinedChunksSize);
+        }
 
         //check previous chunk
         adjacentChunkIndex = reader.getPrevChunkIndex(chosenIndex);
@@ -180,6 +485,10 @@ public class MemoryHeap {
                 joinedChunksSize += reader.getRealDataSize(adjacentChunkIndex);
                 removeFreeChunk(adjacentChunkIndex);
                 chunkIndex = adjacentChunkIndex;
+                chunkIndexChanged(chosenIndex, chunkIndex);
+                if(eventListener != null){
+                    eventListener.onCoalescePrevious(chunkIndex, chosenIndex);
+                }
             }
         }
 
@@ -188,10 +497,17 @@ public class MemoryHeap {
         if(adjacentChunkIndex == topIndex){
             //join to top chunk
             topIndex = chunkIndex;
+            if(compactionIndex >= topIndex){
+                //compaction pass has reached top
+                compactionIndex = 0;
+            }
             if(topIndex == 0){
                 //whole heap has been freed, set prev size for future first chunk
                 writer.setPrevRealDataSize(0, 0);
             }
+            if(eventListener != null){
+                eventListener.onMergeIntoTop(topIndex);
+            }
         }
         else{   //adjacentChunkIndex must be less than memory.length because it can not be more than topIndex
             isFreeChunk = reader.isFree(adjacentChunkIndex);
@@ -199,6 +515,10 @@ public class MemoryHeap {
                 adjacentCount++;
                 joinedChunksSize += reader.getRealDataSize(adjacentChunkIndex);
                 removeFreeChunk(adjacentChunkIndex);
+                chunkIndexChanged(adjacentChunkIndex, chunkIndex);
+                if(eventListener != null){
+                    eventListener.onCoalesceNext(chunkIndex, adjacentChunkIndex);
+                }
             }
 
             //free chunk
@@ -211,6 +531,113 @@ public class MemoryHeap {
         }
     }
 
+    private void chunkIndexChanged(int oldChunkIndex, int newChunkIndex){
+        if(compactionIndex == oldChunkIndex){
+            compactionIndex = newChunkIndex;
+        }
+        binManager.chunkIndexChanged(oldChunkIndex, newChunkIndex);
+    }
+
+    /**
+     * Run one bounded step of compaction. Each step continues the pass from where the previous step stopped, slides
+     * allocated chunks after free chunks toward index 0 and moves free space to top. Heap is consistent after every
+     * step, so steps can be run between other operations.
+     * @param maxVisitedChunks maximum count of chunks visited in this step
+     * @return Return true if compaction pass has not reached top yet, return false otherwise.
+     */
+    public boolean compactStep(int maxVisitedChunks){
+        if(accessTracker != null){
+            accessTracker.beginOperation();
+        }
+
+        int visitedChunks = 0;
+        while(visitedChunks < maxVisitedChunks && compactionIndex < topIndex){
+            if(reader.isFree(compactionIndex)){
+                compactionIndex = slideNextChunk(compactionIndex);
+            }
+            else{
+                compactionIndex = reader.getNextChunkIndex(compactionIndex);
+            }
+            visitedChunks++;
+        }
+        if(accessTracker != null){
+            accessTracker.endOperation();
+        }
+
+        if(compactionIndex >= topIndex){
+            compactionIndex = 0;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Run a whole compaction pass from index 0 to top.
+     */
+    public void compact(){
+        compactionIndex = 0;
+        while(compactStep(Integer.MAX_VALUE)){
+            //compact until top
+        }
+    }
+
+    /**
+     * Move the allocated chunk after the free chunk to the free chunk index and move the free space after it.
+     * @param freeChunkIndex
+     * @return Return index of the moved free space, or top index if it has been joined to top.
+     */
+    private int slideNextChunk(int freeChunkIndex){
+        chunkModificationCount++;
+        int freeChunkSize = reader.getRealDataSize(freeChunkIndex);
+        //adjacent free chunks are always merged, so next chunk is allocated
+        int movingChunkIndex = reader.getNextChunkIndex(freeChunkIndex);
+        int movingChunkSize = reader.getRealDataSize(movingChunkIndex);
+        int afterChunkIndex = reader.getNextChunkIndex(movingChunkIndex);
+
+        //move allocated chunk (its data keeps the handle slot)
+        removeFreeChunk(freeChunkIndex);
+        writer.setFreeStatus(freeChunkIndex, false);
+        writer.setRealDataSize(freeChunkIndex, movingChunkSize);
+        System.arraycopy(memory, movingChunkIndex + ChunkReader.getMetaDataSize(),
+                memory, freeChunkIndex + ChunkReader.getMetaDataSize(), movingChunkSize);
+        int handleSlot = reader.getHandleSlot(freeChunkIndex);
+        if(handleSlot != HandleTable.NO_SLOT){
+            handles.setChunkIndex(handleSlot, freeChunkIndex);
+        }
+        binManager.chunkIndexChanged(movingChunkIndex, freeChunkIndex);
+        if(eventListener != null){
+            eventListener.onChunkMoved(movingChunkIndex, freeChunkIndex, movingChunkSize);
+        }
+
+        //move free space after it
+        int movedFreeChunkIndex = reader.getNextChunkIndex(freeChunkIndex);
+        writer.setPrevRealDataSize(movedFreeChunkIndex, movingChunkSize);
+        if(afterChunkIndex == topIndex){
+            //join to top chunk
+            topIndex = movedFreeChunkIndex;
+            if(eventListener != null){
+                eventListener.onMergeIntoTop(topIndex);
+            }
+            return topIndex;
+        }
+
+        int movedFreeChunkSize = freeChunkSize;
+        if(reader.isFree(afterChunkIndex)){
+            //join the next free chunk
+            movedFreeChunkSize += reader.getRealDataSize(afterChunkIndex) + ChunkReader.getMetaDataSize();
+            removeFreeChunk(afterChunkIndex);
+            binManager.chunkIndexChanged(afterChunkIndex, movedFreeChunkIndex);
+            if(eventListener != null){
+                eventListener.onCoalesceNext(movedFreeChunkIndex, afterChunkIndex);
+            }
+        }
+        freeChunk(movedFreeChunkIndex, movedFreeChunkSize);
+        writer.setPrevRealDataSize(reader.getNextChunkIndex(movedFreeChunkIndex), movedFreeChunkSize);
+
+        return movedFreeChunkIndex;
+    }
+
     private void freeChunk(int chunkIndex, int chunkRealSize){
         writer.setFreeStatus(chunkIndex, true);
         writer.setRealDataSize(chunkIndex, chunkRealSize);
@@ -218,6 +645,11 @@ public class MemoryHeap {
         //add chunk to bin and link it to other free chunks
         int chunkUnitSize = HeapUtility.floorToChunkUnit(chunkRealSize);
         boolean isSizeSupported = binManager.isSupported(chunkUnitSize);
+        metrics.freeChunkAdded(chunkRealSize, isSizeSupported);
+        if(eventListener != null){
+            eventListener.onFreeChunkAdded(chunkIndex, chunkRealSize,
+                    isSizeSupported ? chunkUnitSize : IHeapEventListener.NO_BIN);
+        }
         if(isSizeSupported){
             if(binManager.getStartFreeChunkIndex(chunkUnitSize) < 0){
                 //bin is empty
@@ -263,44 +695,142 @@ public class MemoryHeap {
         writer.setForwardFreeIndex(chunkIndex, forwardIndex);
     }
 
+    /**
+     * Check consistency of chunks and bins by walking the whole heap.
+     * @return Return found problems, or an empty list if heap is consistent.
+     */
+    public List<String> verify(){
+        return HeapVerifier.verify(memory, topIndex, binManager);
+    }
+
+    /**
+     * Get sequential stream of all chunks under top index, in index order. Use parallel() to analyze big heaps with
+     * several threads. Chunk sizes are walked to index the chunk starts used for splitting only when chunks have been
+     * changed since the previous call. Heap must not be changed until the stream is consumed.
+     * @return
+     */
+    public Stream<HeapChunk> chunks(){
+        if(indexedChunks == null || indexedChunkModificationCount != chunkModificationCount){
+            indexedChunks = ChunkSpliterator.create(memory, topIndex);
+            indexedChunkModificationCount = chunkModificationCount;
+        }
+        return StreamSupport.stream(indexedChunks.copy(), false);
+    }
+
     /**
      * Print first byte index of allocated chunks and top index on the end.
      */
     public void printAllocatedChunks(){
+        PrintWriter out = new PrintWriter(System.out);
+        printAllocatedChunks(out);
+        out.flush();
+    }
+
+    /**
+     * Print first byte index of allocated chunks and top index on the end.
+     * @param out writer to print to, it is not flushed
+     */
+    public void printAllocatedChunks(PrintWriter out){
         boolean allocatedChunkExists = false;
         int chunkIndex = 0;
         while(chunkIndex < topIndex){
             boolean isFree = reader.isFree(chunkIndex);
             if(!isFree){
                 allocatedChunkExists = true;
-                System.out.print(chunkIndex + " ");
+                out.print(chunkIndex);
+                out.print(' ');
             }
 
             chunkIndex = reader.getNextChunkIndex(chunkIndex);
         }
 
         if(allocatedChunkExists){
-            System.out.println(topIndex);
+            out.println(topIndex);
         }
         else{
-            System.out.println("No allocated chunk exist");
+            out.println(NO_ALLOCATED_CHUNK_MESSAGE);
+        }
+    }
+
+    /**
+     * Print allocated chunks in the same format as printAllocatedChunks, from indices collected by forEachAllocatedChunk.
+     * @param chunkIndices
+     * @param chunkCount count of used indices
+     * @param topIndex
+     * @param out writer to print to, it is not flushed
+     */
+    public static void printAllocatedChunks(int[] chunkIndices, int chunkCount, int topIndex, PrintWriter out){
+        if(chunkCount == 0){
+            out.println(NO_ALLOCATED_CHUNK_MESSAGE);
+            return;
+        }
+
+        for(int i = 0; i < chunkCount; i++){
+            out.print(chunkIndices[i]);
+            out.print(' ');
+        }
+        out.println(topIndex);
+    }
+
+    /**
+     * Pass first byte index of every allocated chunk to action, in memory order.
+     * @param action
+     */
+    public void forEachAllocatedChunk(IntConsumer action){
+        int chunkIndex = 0;
+        while(chunkIndex < topIndex){
+            if(!reader.isFree(chunkIndex)){
+                action.accept(chunkIndex);
+            }
+
+            chunkIndex = reader.getNextChunkIndex(chunkIndex);
         }
     }
 
     public void printBins(){
+        PrintWriter out = new PrintWriter(System.out);
+        printBins(out);
+        out.flush();
+    }
+
+    /**
+     * Print free chunks count of not empty bins.
+     * @param out writer to print to, it is not flushed
+     */
+    public void printBins(PrintWriter out){
+        int[] freeChunkCounts = new int[HeapUtility.SMALL_BINS_COUNT];
+        getBinFreeChunkCounts(freeChunkCounts);
+        printBins(freeChunkCounts, out);
+    }
+
+    /**
+     * Print bins in the same format as printBins, from counts filled by getBinFreeChunkCounts.
+     * @param freeChunkCounts
+     * @param out writer to print to, it is not flushed
+     */
+    public static void printBins(int[] freeChunkCounts, PrintWriter out){
         int totalFreeChunksCount = 0;
         for(int i = 0; i < HeapUtility.SMALL_BINS_COUNT; i++){
-            int chunkUnitSize = (i + 1) * HeapUtility.CHUNK_UNIT;
-            int freeChunkCount = binManager.getBinFreeChunkCount(chunkUnitSize, reader);
+            int freeChunkCount = freeChunkCounts[i];
             totalFreeChunksCount +=freeChunkCount;
             if(freeChunkCount > 0){
-                String message = String.format("bin%1$d %2$d", i + 1, freeChunkCount);
-                System.out.println(message);
+                out.print("bin");
+                out.print(i + 1);
+                out.print(' ');
+                out.println(freeChunkCount);
             }
         }
 
         if(totalFreeChunksCount == 0){
-            System.out.println("No bin exist");
+            out.println(NO_BIN_MESSAGE);
         }
     }
+
+    /**
+     * Get free chunks count of every small bin, index i is the bin of chunk unit size (i + 1) * CHUNK_UNIT.
+     * @param freeChunkCounts array of at least SMALL_BINS_COUNT length to fill
+     */
+    public void getBinFreeChunkCounts(int[] freeChunkCounts){
+        binManager.getBinFreeChunkCounts(freeChunkCounts, reader);
+    }
 }
@@ -0,0 +1,71 @@
+package com.heapsimulation.base;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+
+/**
+ * Lock-free multiple producer single consumer queue of handles freed by threads other than the heap owner.
+ * Producers push with a CAS on the head node, the owner thread detaches the whole list at once and consumes it
+ * in push order, so producers never touch the bins.
+ */
+public class RemoteFreeQueue {
+    private final AtomicReference<Node> head = new AtomicReference<>();
+
+    /**
+     * Add a handle to pending frees. Safe to call from any thread.
+     * @param handle handle of the allocated chunk to free
+     */
+    public void push(long handle){
+        Node node = new Node(handle);
+        Node currentHead;
+        do{
+            currentHead = head.get();
+            node.next = currentHead;
+        }
+        while(!head.compareAndSet(currentHead, node));
+    }
+
+    public boolean isEmpty(){
+        return head.get() == null;
+    }
+
+    /**
+     * Take all pending handles as one batch and pass them to consumer in push order.
+     * Must only be called by the owner thread.
+     * @param consumer
+     * @return Return count of consumed handles.
+     */
+    public int drain(LongConsumer consumer){
+        Node node = head.getAndSet(null);
+        if(node == null){
+            return 0;
+        }
+
+        //reverse detached stack to get push order
+        Node reversed = null;
+        while(node != null){
+            Node next = node.next;
+            node.next = reversed;
+            reversed = node;
+            node = next;
+        }
+
+        int count = 0;
+        while(reversed != null){
+            consumer.accept(reversed.handle);
+            reversed = reversed.next;
+            count++;
+        }
+
+        return count;
+    }
+
+    private static class Node {
+        private final long handle;
+        private Node next;
+
+        private Node(long handle){
+            this.handle = handle;
+        }
+    }
+}
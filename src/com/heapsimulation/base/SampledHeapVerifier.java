@@ -0,0 +1,158 @@
+package com.heapsimulation.base;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verify a heap once every interval operations, so the cost of a whole heap walk is shared by interval operations.
+ * In background mode the owner thread only takes a snapshot, which copies memory under top, and another thread walks
+ * it. A new snapshot is skipped while the previous one is still being verified, so verification never queues up.
+ */
+public class SampledHeapVerifier implements Closeable {
+    private final static int MAX_FAILURES = 100;
+
+    private final MemoryHeap heap;
+    private final int interval;
+    private final ExecutorService executor;
+    private final AtomicBoolean verificationRunning = new AtomicBoolean(false);
+    private final AtomicLong verificationCount = new AtomicLong();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+    private long operationCount = 0;
+    private long skippedCount = 0;
+
+    /**
+     * @param heap heap to verify
+     * @param interval count of operations between verifications
+     * @param background verify snapshots on another thread instead of the owner thread
+     */
+    public SampledHeapVerifier(MemoryHeap heap, int interval, boolean background){
+        if(interval <= 0){
+            throw new IllegalArgumentException("Verification interval must be positive");
+        }
+
+        this.heap = heap;
+        this.interval = interval;
+        executor = background ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heap-verifier");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Called by the owner thread after every heap operation.
+     */
+    public void operationFinished(){
+        operationCount++;
+        if(operationCount % interval != 0){
+            return;
+        }
+
+        long operationNumber = operationCount;
+        if(executor == null){
+            addProblems(operationNumber, heap.verify());
+        }
+        else if(verificationRunning.compareAndSet(false, true)){
+            HeapSnapshot snapshot = heap.snapshot();
+            try{
+                executor.execute(() -> {
+                    try{
+                        addProblems(operationNumber, HeapVerifier.verify(snapshot));
+                    }
+                    finally{
+                        verificationRunning.set(false);
+                    }
+                });
+            }
+            catch(RejectedExecutionException exception){
+                //verifier has been closed
+                verificationRunning.set(false);
+                skippedCount++;
+            }
+        }
+        else{
+            skippedCount++;
+        }
+    }
+
+    private void addProblems(long operationNumber, List<String> problems){
+        verificationCount.incrementAndGet();
+        for(String problem : problems){
+            if(failures.size() < MAX_FAILURES){
+                failures.add(String.format("After operation %d: %s", operationNumber, problem));
+            }
+        }
+    }
+
+    /**
+     * Get count of finished verifications.
+     * @return
+     */
+    public long getVerificationCount(){
+        return verificationCount.get();
+    }
+
+    /**
+     * Get count of background verifications skipped because the previous one had not finished.
+     * @return
+     */
+    public long getSkippedCount(){
+        return skippedCount;
+    }
+
+    /**
+     * Get found problems, up to MAX_FAILURES.
+     * @return
+     */
+    public List<String> getFailures(){
+        synchronized(failures){
+            return new ArrayList<>(failures);
+        }
+    }
+
+    /**
+     * Wait for the running background verification to finish, so results include it. Verifier keeps verifying
+     * the next operations.
+     */
+    public void awaitVerification(){
+        if(executor == null || executor.isShutdown()){
+            return;
+        }
+
+        try{
+            //executor has one thread, so the empty task runs after the running verification
+            executor.submit(() -> { }).get();
+        }
+        catch(InterruptedException exception){
+            Thread.currentThread().interrupt();
+        }
+        catch(ExecutionException | RejectedExecutionException exception){
+            //verifier has been closed meanwhile, close waits for the running verification
+        }
+    }
+
+    /**
+     * Wait for the running background verification to finish and stop verifying in background.
+     */
+    @Override
+    public void close(){
+        if(executor != null){
+            executor.shutdown();
+            try{
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            catch(InterruptedException exception){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.heapsimulation.base;
+
+/**
+ * Simple set associative cache model with least recently used replacement. It only keeps line tags to count hits
+ * and misses, no data is stored.
+ */
+public class SetAssociativeCache {
+    private final static long NO_TAG = -1;
+
+    private final int setCount;
+    private final int ways;
+    private final long[] tags;
+    private final long[] lastUseTimes;
+    private long time = 0;
+    private long accessCount = 0;
+    private long missCount = 0;
+
+    /**
+     * @param cacheSize cache size in bytes
+     * @param ways count of lines in each set
+     * @param lineSize line size in bytes
+     */
+    public SetAssociativeCache(int cacheSize, int ways, int lineSize){
+        if(ways <= 0 || lineSize <= 0 || cacheSize < ways * lineSize || cacheSize % (ways * lineSize) != 0){
+            throw new IllegalArgumentException("Cache size must be a positive multiple of ways * line size");
+        }
+
+        this.ways = ways;
+        setCount = cacheSize / (ways * lineSize);
+        tags = new long[setCount * ways];
+        lastUseTimes = new long[setCount * ways];
+        clear();
+    }
+
+    /**
+     * Access one line and load it if it is missed.
+     * @param lineNumber memory address divided by line size
+     * @return Return true if line was in cache, return false otherwise.
+     */
+    public boolean access(long lineNumber){
+        accessCount++;
+        time++;
+        int setStart = (int)(lineNumber % setCount) * ways;
+        int leastRecentlyUsed = setStart;
+        for(int i = setStart; i < setStart + ways; i++){
+            if(tags[i] == lineNumber){
+                lastUseTimes[i] = time;
+                return true;
+            }
+            if(lastUseTimes[i] < lastUseTimes[leastRecentlyUsed]){
+                leastRecentlyUsed = i;
+            }
+        }
+
+        missCount++;
+        tags[leastRecentlyUsed] = lineNumber;
+        lastUseTimes[leastRecentlyUsed] = time;
+        return false;
+    }
+
+    /**
+     * Empty all lines and reset counters.
+     */
+    public void clear(){
+        for(int i = 0; i < tags.length; i++){
+            tags[i] = NO_TAG;
+            lastUseTimes[i] = 0;
+        }
+        time = 0;
+        accessCount = 0;
+        missCount = 0;
+    }
+
+    public long getAccessCount(){
+        return accessCount;
+    }
+
+    public long getMissCount(){
+        return missCount;
+    }
+}
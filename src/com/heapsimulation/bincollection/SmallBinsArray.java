@@ -17,6 +17,10 @@ public class SmallBinsArray implements IBinCollection {
         }
     }
 
+    public SmallBinsArray(SmallBinsArray other){
+        binStartIndices = other.binStartIndices.clone();
+    }
+
     @Override
     public boolean isSupported(int chunkSize) {
         int binIndex = getBinIndex(chunkSize);
@@ -48,4 +48,11 @@ public class BestFitManager implements IBinManager {
 
         return chosenChunkIndex;
     }
+
+    @Override
+    public IBinManager copy() {
+        BestFitManager copy = new BestFitManager();
+        copy.array = new SmallBinsArray(array);
+        return copy;
+    }
 }
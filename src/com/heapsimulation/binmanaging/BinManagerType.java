@@ -0,0 +1,55 @@
+package com.heapsimulation.binmanaging;
+
+/**
+ * Bin managers which can be chosen by name in commands.
+ */
+public enum BinManagerType {
+    FIRST_FIT("firstFit"),
+    NEXT_FIT("nextFit"),
+    WORST_FIT("worstFit"),
+    BEST_FIT("bestFit");
+
+    private final String name;
+
+    BinManagerType(String name){
+        this.name = name;
+    }
+
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Create new bin manager of this type.
+     * @return
+     */
+    public IBinManager create(){
+        switch(this){
+            case FIRST_FIT:
+                return new FirstFitManager();
+            case NEXT_FIT:
+                return new NextFitManager();
+            case WORST_FIT:
+                return new WorstFitManager();
+            case BEST_FIT:
+                return new BestFitManager();
+            default:
+                throw new IllegalStateException("No bin manager for " + name);
+        }
+    }
+
+    /**
+     * Find bin manager type by its command name.
+     * @param name
+     * @return Return the bin manager type, or null if no bin manager has this name.
+     */
+    public static BinManagerType fromName(String name){
+        for(BinManagerType type : values()){
+            if(type.name.equals(name)){
+                return type;
+            }
+        }
+
+        return null;
+    }
+}
@@ -46,4 +46,11 @@ public class FirstFitManager implements IBinManager {
 
         return chosenChunkIndex;
     }
+
+    @Override
+    public IBinManager copy() {
+        FirstFitManager copy = new FirstFitManager();
+        copy.array = new SmallBinsArray(array);
+        return copy;
+    }
 }
@@ -12,4 +12,32 @@ public interface IBinManager extends IBinCollection {
      * @return Return the free found chunk index by it's strategy.
      */
     int getFreeChunkIndex(int size, ChunkReader chunkReader, MemoryHeap heap);
+
+    /**
+     * Create an independent bin manager with the same bins and search state, for a copy of the heap memory.
+     * @return
+     */
+    IBinManager copy();
+
+    /**
+     * Called by heap when a chunk start index is no longer valid because the chunk has been merged to another chunk.
+     * Bin managers which keep chunk indices out of bins must update them.
+     * @param oldChunkIndex index which is no longer a chunk start
+     * @param newChunkIndex index of the chunk which contains the old chunk now
+     */
+    default void chunkIndexChanged(int oldChunkIndex, int newChunkIndex){
+
+    }
+
+    /**
+     * Get free chunks count of every small bin, index i is the bin of chunk unit size (i + 1) * CHUNK_UNIT. Bin
+     * managers which keep free chunks of all sizes in one list count them in one walk of the list.
+     * @param freeChunkCounts array of at least SMALL_BINS_COUNT length to fill
+     * @param chunkReader
+     */
+    default void getBinFreeChunkCounts(int[] freeChunkCounts, ChunkReader chunkReader){
+        for(int i = 0; i < HeapUtility.SMALL_BINS_COUNT; i++){
+            freeChunkCounts[i] = getBinFreeChunkCount((i + 1) * HeapUtility.CHUNK_UNIT, chunkReader);
+        }
+    }
 }
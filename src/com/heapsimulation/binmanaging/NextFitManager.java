@@ -2,6 +2,8 @@ package com.heapsimulation.binmanaging;
 
 import com.heapsimulation.base.*;
 
+import java.util.Arrays;
+
 public class NextFitManager implements IBinManager {
     private int currentChosenChunk = 0;
     private int startFreeChunk = NO_CHUNK;
@@ -50,9 +52,40 @@ public class NextFitManager implements IBinManager {
         return 0;
     }
 
+    @Override
+    public void getBinFreeChunkCounts(int[] freeChunkCounts, ChunkReader reader) {
+        Arrays.fill(freeChunkCounts, 0, HeapUtility.SMALL_BINS_COUNT, 0);
+        if(startFreeChunk > -1){
+            //same counts as getBinFreeChunkCount of every bin, with one walk instead of one per bin
+            int freeChunkIndex = startFreeChunk;
+            do{
+                int foundChunkSize = reader.getRealDataSize(freeChunkIndex);
+                int binIndex = foundChunkSize / HeapUtility.CHUNK_UNIT - 1;
+                boolean isBinSize = foundChunkSize % HeapUtility.CHUNK_UNIT == 0;
+                if(isBinSize && binIndex >= 0 && binIndex < HeapUtility.SMALL_BINS_COUNT){
+                    freeChunkCounts[binIndex]++;
+                }
+                freeChunkIndex = reader.getForwardFreeIndex(freeChunkIndex);
+            }
+            while(freeChunkIndex != startFreeChunk);
+        }
+    }
+
     @Override
     public int getFreeChunkIndex(int size, ChunkReader chunkReader, MemoryHeap heap) {
+        int topIndex = heap.getTopIndex();
+        if(currentChosenChunk >= topIndex){
+            //current chunk has been merged to top, reset it before top grows again
+            currentChosenChunk = 0;
+        }
+
+        if(startFreeChunk == NO_CHUNK){
+            //no free chunk exists
+            return NO_CHUNK;
+        }
+
         size = HeapUtility.ceilToChunkUnit(size);
+
         int prevChosenChunk = currentChosenChunk;
         boolean isFree = chunkReader.isFree(currentChosenChunk);
         if(!isFree){
@@ -60,10 +93,10 @@ public class NextFitManager implements IBinManager {
 
             //search from current index to memory top index
             currentChosenChunk = chunkReader.getNextChunkIndex(currentChosenChunk);
-            isFree = chunkReader.isFree(currentChosenChunk);
-            while(!isFree && currentChosenChunk < heap.getTopIndex()){
+            isFree = currentChosenChunk < topIndex && chunkReader.isFree(currentChosenChunk);
+            while(!isFree && currentChosenChunk < topIndex){
                 currentChosenChunk = chunkReader.getNextChunkIndex(currentChosenChunk);
-                isFree = chunkReader.isFree(currentChosenChunk);
+                isFree = currentChosenChunk < topIndex && chunkReader.isFree(currentChosenChunk);
             }
 
             //search from memory start index to current index
@@ -86,6 +119,21 @@ public class NextFitManager implements IBinManager {
         }
     }
 
+    @Override
+    public IBinManager copy() {
+        NextFitManager copy = new NextFitManager();
+        copy.currentChosenChunk = currentChosenChunk;
+        copy.startFreeChunk = startFreeChunk;
+        return copy;
+    }
+
+    @Override
+    public void chunkIndexChanged(int oldChunkIndex, int newChunkIndex) {
+        if(currentChosenChunk == oldChunkIndex){
+            currentChosenChunk = newChunkIndex;
+        }
+    }
+
     private int searchFreeChunks(int size, ChunkReader reader){
         int chosenChunkIndex = NO_CHUNK;
         int prevChosenChunk = currentChosenChunk;
@@ -47,4 +47,11 @@ public class WorstFitManager implements IBinManager {
 
         return chosenChunkIndex;
     }
+
+    @Override
+    public IBinManager copy() {
+        WorstFitManager copy = new WorstFitManager();
+        copy.array = new SmallBinsArray(array);
+        return copy;
+    }
 }
@@ -0,0 +1,174 @@
+package com.heapsimulation.comparison;
+
+import com.heapsimulation.base.*;
+import com.heapsimulation.binmanaging.*;
+import com.heapsimulation.trace.*;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Replay one recorded trace against several bin managers at the same time, each with its own heaps.
+ * setBinManager commands of the trace start a new heap with the compared bin manager instead of the named one.
+ */
+public class StrategyComparison {
+    private final TraceRecording recording;
+    private final int heapSize;
+
+    public StrategyComparison(TraceRecording recording){
+        this(recording, MemoryHeap.DEFAULT_HEAP_SIZE);
+    }
+
+    /**
+     * @param recording
+     * @param heapSize memory size of replayed heaps
+     */
+    public StrategyComparison(TraceRecording recording, int heapSize){
+        if(heapSize <= 0){
+            throw new IllegalArgumentException("Heap size must be positive");
+        }
+
+        this.recording = recording;
+        this.heapSize = heapSize;
+    }
+
+    /**
+     * Replay the trace against all bin manager types in parallel.
+     * @param binManagerTypes
+     * @return Return results in order of bin manager types.
+     */
+    public List<StrategyResult> compare(BinManagerType[] binManagerTypes){
+        int threadCount = Math.min(binManagerTypes.length, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(threadCount, 1));
+        try{
+            List<Future<StrategyResult>> futures = new ArrayList<>();
+            for(BinManagerType binManagerType : binManagerTypes){
+                futures.add(executor.submit(() -> replay(binManagerType)));
+            }
+
+            List<StrategyResult> results = new ArrayList<>();
+            for(Future<StrategyResult> future : futures){
+                results.add(future.get());
+            }
+
+            return results;
+        }
+        catch(InterruptedException exception){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Strategy comparison has been interrupted", exception);
+        }
+        catch(ExecutionException exception){
+            throw new IllegalStateException("Strategy replay failed", exception.getCause());
+        }
+        finally{
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Replay the trace against one bin manager type.
+     * @param binManagerType
+     * @return
+     */
+    public StrategyResult replay(BinManagerType binManagerType){
+        long mallocCount = 0;
+        long succeededMallocCount = 0;
+        long freeCount = 0;
+        long succeededFreeCount = 0;
+        int peakTopIndex = 0;
+        long endFreeChunksSize = 0;
+        long endTopIndex = 0;
+
+        long startTime = System.nanoTime();
+        //commands before the first setBinManager have no heap, as in CommandProcessor
+        MemoryHeap heap = null;
+        //handles of generated workload allocations by allocation id
+        long[] allocationHandles = new long[0];
+        int operationCount = recording.getOperationCount();
+        for(int i = 0; i < operationCount; i++){
+            switch(recording.getOpcode(i)){
+                case BinaryTraceFormat.OP_MALLOC:
+                    if(heap == null){
+                        break;
+                    }
+                    mallocCount++;
+                    if(heap.malloc(recording.getArgument(i))){
+                        succeededMallocCount++;
+                        peakTopIndex = Math.max(peakTopIndex, heap.getTopIndex());
+                    }
+                    break;
+                case BinaryTraceFormat.OP_FREE:
+                    if(heap == null){
+                        break;
+                    }
+                    freeCount++;
+                    if(heap.free(recording.getArgument(i))){
+                        succeededFreeCount++;
+                    }
+                    break;
+                case TraceRecording.OP_MALLOC_ALLOCATION:
+                    if(heap == null){
+                        break;
+                    }
+                    mallocCount++;
+                    int allocationId = recording.getAllocationId(i);
+                    if(allocationId >= allocationHandles.length){
+                        allocationHandles = Arrays.copyOf(allocationHandles, Math.max(16, (allocationId + 1) * 2));
+                    }
+                    allocationHandles[allocationId] = heap.mallocHandle(recording.getArgument(i));
+                    if(allocationHandles[allocationId] != HandleTable.NO_HANDLE){
+                        succeededMallocCount++;
+                        peakTopIndex = Math.max(peakTopIndex, heap.getTopIndex());
+                    }
+                    break;
+                case TraceRecording.OP_FREE_ALLOCATION:
+                    //failed allocations are never freed, as when the workload drives a heap directly
+                    if(heap == null || allocationHandles[recording.getAllocationId(i)] == HandleTable.NO_HANDLE){
+                        break;
+                    }
+                    freeCount++;
+                    if(heap.freeHandle(allocationHandles[recording.getAllocationId(i)])){
+                        succeededFreeCount++;
+                    }
+                    break;
+                case BinaryTraceFormat.OP_SET_BIN_MANAGER:
+                    if(heap != null){
+                        //previous heap commands has finished
+                        endFreeChunksSize += heap.getFreeChunksSize();
+                        endTopIndex += heap.getTopIndex();
+                    }
+                    heap = new MemoryHeap(heapSize, binManagerType.create());
+                    break;
+            }
+        }
+        if(heap != null){
+            endFreeChunksSize += heap.getFreeChunksSize();
+            endTopIndex += heap.getTopIndex();
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        return new StrategyResult(binManagerType.getName(), mallocCount, succeededMallocCount, freeCount,
+                succeededFreeCount, peakTopIndex, endFreeChunksSize, endTopIndex, elapsedNanos);
+    }
+
+    /**
+     * Print one comparison table of results.
+     * @param results
+     * @param out
+     */
+    public static void printReport(List<StrategyResult> results, PrintWriter out){
+        out.println(String.format("%-10s %12s %9s %12s %9s %9s %14s %14s",
+                "Strategy", "Mallocs", "Success%", "Frees", "Success%", "Peak top", "Fragmentation%", "Ops/sec"));
+        for(StrategyResult result : results){
+            double freeSuccessRate = result.getFreeCount() == 0 ? 0
+                    : 100.0 * result.getSucceededFreeCount() / result.getFreeCount();
+            out.println(String.format("%-10s %12d %9.2f %12d %9.2f %9d %14.2f %14.0f",
+                    result.getStrategyName(), result.getMallocCount(), result.getMallocSuccessRate(),
+                    result.getFreeCount(), freeSuccessRate, result.getPeakTopIndex(), result.getFragmentation(),
+                    result.getOperationsPerSecond()));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.heapsimulation.comparison;
+
+/**
+ * Result of replaying a trace against one bin manager.
+ */
+public class StrategyResult {
+    private final String strategyName;
+    private final long mallocCount;
+    private final long succeededMallocCount;
+    private final long freeCount;
+    private final long succeededFreeCount;
+    private final int peakTopIndex;
+    private final long endFreeChunksSize;
+    private final long endTopIndex;
+    private final long elapsedNanos;
+
+    public StrategyResult(String strategyName, long mallocCount, long succeededMallocCount, long freeCount,
+                          long succeededFreeCount, int peakTopIndex, long endFreeChunksSize, long endTopIndex,
+                          long elapsedNanos){
+        this.strategyName = strategyName;
+        this.mallocCount = mallocCount;
+        this.succeededMallocCount = succeededMallocCount;
+        this.freeCount = freeCount;
+        this.succeededFreeCount = succeededFreeCount;
+        this.peakTopIndex = peakTopIndex;
+        this.endFreeChunksSize = endFreeChunksSize;
+        this.endTopIndex = endTopIndex;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getStrategyName(){
+        return strategyName;
+    }
+
+    public long getMallocCount(){
+        return mallocCount;
+    }
+
+    public long getSucceededMallocCount(){
+        return succeededMallocCount;
+    }
+
+    public long getFreeCount(){
+        return freeCount;
+    }
+
+    public long getSucceededFreeCount(){
+        return succeededFreeCount;
+    }
+
+    /**
+     * Get highest top index of all heaps of the trace.
+     * @return
+     */
+    public int getPeakTopIndex(){
+        return peakTopIndex;
+    }
+
+    public long getElapsedNanos(){
+        return elapsedNanos;
+    }
+
+    /**
+     * Get percent of mallocs which succeeded.
+     * @return
+     */
+    public double getMallocSuccessRate(){
+        return mallocCount == 0 ? 0 : 100.0 * succeededMallocCount / mallocCount;
+    }
+
+    /**
+     * Get percent of space under top index which was in free chunks at end of heaps.
+     * @return
+     */
+    public double getFragmentation(){
+        return endTopIndex == 0 ? 0 : 100.0 * endFreeChunksSize / endTopIndex;
+    }
+
+    public double getOperationsPerSecond(){
+        long operationCount = mallocCount + freeCount;
+        return elapsedNanos == 0 ? 0 : operationCount * 1_000_000_000.0 / elapsedNanos;
+    }
+}
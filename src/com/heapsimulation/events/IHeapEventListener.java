@@ -0,0 +1,96 @@
+package com.heapsimulation.events;
+
+/**
+ * Observer of chunk changes inside a heap. Methods are called on the heap owner thread in the order the changes
+ * happen, so they must return quickly. Sizes are real data sizes of chunks.
+ */
+public interface IHeapEventListener {
+    public static final int NO_BIN = -1;
+
+    /**
+     * Called when malloc takes a free chunk found by the bin manager.
+     * @param chunkIndex index of the taken free chunk
+     * @param requestedUnitSize requested size ceiled to chunk unit
+     * @param binUnitSize unit size of the bin which kept the free chunk
+     */
+    default void onMallocFromBin(int chunkIndex, int requestedUnitSize, int binUnitSize){
+
+    }
+
+    /**
+     * Called when malloc allocates a new chunk at top.
+     * @param chunkIndex index of the new chunk, which was the top index
+     * @param requestedUnitSize requested size ceiled to chunk unit
+     */
+    default void onMallocFromTop(int chunkIndex, int requestedUnitSize){
+
+    }
+
+    /**
+     * Called when a taken free chunk is split and its remain becomes a new free chunk.
+     * @param chunkIndex index of the allocated part
+     * @param allocatedSize
+     * @param remainChunkIndex index of the remain free chunk
+     * @param remainSize
+     */
+    default void onSplit(int chunkIndex, int allocatedSize, int remainChunkIndex, int remainSize){
+
+    }
+
+    /**
+     * Called when an allocated chunk is going to be freed, before it is joined with adjacent free chunks.
+     * @param chunkIndex
+     * @param size
+     */
+    default void onFree(int chunkIndex, int size){
+
+    }
+
+    /**
+     * Called when a freed chunk is joined to the free chunk before it.
+     * @param previousChunkIndex index of the previous free chunk, which is the index of joined chunk
+     * @param chunkIndex index of the freed chunk
+     */
+    default void onCoalescePrevious(int previousChunkIndex, int chunkIndex){
+
+    }
+
+    /**
+     * Called when a freed chunk, or free space moved by compaction, is joined to the free chunk after it.
+     * @param chunkIndex index of the freed chunk or moved free space, or of the joined chunk if it has been joined to
+     *                   previous chunk too
+     * @param nextChunkIndex index of the next free chunk
+     */
+    default void onCoalesceNext(int chunkIndex, int nextChunkIndex){
+
+    }
+
+    /**
+     * Called when a freed chunk, or free space moved by compaction, is joined to top.
+     * @param topIndex new top index
+     */
+    default void onMergeIntoTop(int topIndex){
+
+    }
+
+    /**
+     * Called when compaction moves an allocated chunk into the free chunk before it. The free chunk is taken out of its
+     * bin and the free space is moved after the moved chunk, where it is joined to the next free chunk or to top.
+     * @param oldChunkIndex
+     * @param newChunkIndex index of the taken free chunk
+     * @param size
+     */
+    default void onChunkMoved(int oldChunkIndex, int newChunkIndex, int size){
+
+    }
+
+    /**
+     * Called when a free chunk is made, after free, split or compaction.
+     * @param chunkIndex
+     * @param size
+     * @param binUnitSize unit size of the bin which keeps the chunk, or NO_BIN if the size is not supported by bins
+     */
+    default void onFreeChunkAdded(int chunkIndex, int size, int binUnitSize){
+
+    }
+}
@@ -0,0 +1,220 @@
+package com.heapsimulation.events;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Listener which writes events into a single producer single consumer ring buffer of ints, so the heap owner thread
+ * only stores a few ints per event. A consumer thread takes all published events as one batch and passes them to
+ * the consumer listener on its own thread. The producer waits while the ring is full, so no event is lost.
+ */
+public class RingBufferEventListener implements IHeapEventListener, Closeable {
+    private final static int SLOT_SIZE = 5;     //event type and up to four arguments
+    private final static long IDLE_PARK_NANOS = 50_000;
+
+    private final static int MALLOC_FROM_BIN = 0;
+    private final static int MALLOC_FROM_TOP = 1;
+    private final static int SPLIT = 2;
+    private final static int FREE = 3;
+    private final static int COALESCE_PREVIOUS = 4;
+    private final static int COALESCE_NEXT = 5;
+    private final static int MERGE_INTO_TOP = 6;
+    private final static int FREE_CHUNK_ADDED = 7;
+    private final static int CHUNK_MOVED = 8;
+
+    private final int[] events;
+    private final int capacity;
+    private final int mask;
+    private final IHeapEventListener consumer;
+    private final Thread consumerThread;
+    private final AtomicLong publishedSequence = new AtomicLong();
+    private final AtomicLong consumedSequence = new AtomicLong();
+    private volatile boolean closed = false;
+    private volatile RuntimeException consumerFailure = null;
+
+    //only used by producer
+    private long nextSequence = 0;
+    private long knownConsumedSequence = 0;
+
+    /**
+     * Start the consumer thread.
+     * @param capacity count of events which fit in ring, it is ceiled to a power of two
+     * @param consumer listener which receives events on the consumer thread
+     */
+    public RingBufferEventListener(int capacity, IHeapEventListener consumer){
+        if(capacity <= 0 || capacity > (1 << 24)){
+            throw new IllegalArgumentException("Ring capacity must be between 1 and 2^24");
+        }
+
+        this.capacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        mask = this.capacity - 1;
+        events = new int[this.capacity * SLOT_SIZE];
+        this.consumer = consumer;
+        consumerThread = new Thread(this::consume, "heap-event-consumer");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    @Override
+    public void onMallocFromBin(int chunkIndex, int requestedUnitSize, int binUnitSize){
+        publish(MALLOC_FROM_BIN, chunkIndex, requestedUnitSize, binUnitSize, 0);
+    }
+
+    @Override
+    public void onMallocFromTop(int chunkIndex, int requestedUnitSize){
+        publish(MALLOC_FROM_TOP, chunkIndex, requestedUnitSize, 0, 0);
+    }
+
+    @Override
+    public void onSplit(int chunkIndex, int allocatedSize, int remainChunkIndex, int remainSize){
+        publish(SPLIT, chunkIndex, allocatedSize, remainChunkIndex, remainSize);
+    }
+
+    @Override
+    public void onFree(int chunkIndex, int size){
+        publish(FREE, chunkIndex, size, 0, 0);
+    }
+
+    @Override
+    public void onCoalescePrevious(int previousChunkIndex, int chunkIndex){
+        publish(COALESCE_PREVIOUS, previousChunkIndex, chunkIndex, 0, 0);
+    }
+
+    @Override
+    public void onCoalesceNext(int chunkIndex, int nextChunkIndex){
+        publish(COALESCE_NEXT, chunkIndex, nextChunkIndex, 0, 0);
+    }
+
+    @Override
+    public void onMergeIntoTop(int topIndex){
+        publish(MERGE_INTO_TOP, topIndex, 0, 0, 0);
+    }
+
+    @Override
+    public void onChunkMoved(int oldChunkIndex, int newChunkIndex, int size){
+        publish(CHUNK_MOVED, oldChunkIndex, newChunkIndex, size, 0);
+    }
+
+    @Override
+    public void onFreeChunkAdded(int chunkIndex, int size, int binUnitSize){
+        publish(FREE_CHUNK_ADDED, chunkIndex, size, binUnitSize, 0);
+    }
+
+    /**
+     * Wait until consumer has received all published events. Must only be called by the producer thread.
+     */
+    public void flush(){
+        while(consumedSequence.get() < nextSequence){
+            checkConsumer();
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Deliver remaining events and stop the consumer thread. Must only be called by the producer thread.
+     */
+    @Override
+    public void close(){
+        closed = true;
+        try{
+            consumerThread.join();
+        }
+        catch(InterruptedException exception){
+            Thread.currentThread().interrupt();
+        }
+        checkConsumer();
+    }
+
+    private void publish(int type, int first, int second, int third, int fourth){
+        long sequence = nextSequence;
+        if(sequence - knownConsumedSequence >= capacity){
+            knownConsumedSequence = consumedSequence.get();
+            while(sequence - knownConsumedSequence >= capacity){
+                //ring is full, wait for consumer
+                checkConsumer();
+                Thread.onSpinWait();
+                knownConsumedSequence = consumedSequence.get();
+            }
+        }
+
+        int slotIndex = (int)(sequence & mask) * SLOT_SIZE;
+        events[slotIndex] = type;
+        events[slotIndex + 1] = first;
+        events[slotIndex + 2] = second;
+        events[slotIndex + 3] = third;
+        events[slotIndex + 4] = fourth;
+        nextSequence = sequence + 1;
+        //ordered store makes slot visible before the sequence, without a full fence
+        publishedSequence.lazySet(nextSequence);
+    }
+
+    private void checkConsumer(){
+        RuntimeException failure = consumerFailure;
+        if(failure != null){
+            throw new IllegalStateException("Heap event consumer failed", failure);
+        }
+    }
+
+    private void consume(){
+        try{
+            long sequence = 0;
+            while(true){
+                long publishedEnd = publishedSequence.get();
+                if(publishedEnd == sequence){
+                    if(closed && publishedSequence.get() == sequence){
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+
+                //deliver the whole batch, then release its slots at once
+                while(sequence < publishedEnd){
+                    dispatch((int)(sequence & mask) * SLOT_SIZE);
+                    sequence++;
+                }
+                consumedSequence.lazySet(sequence);
+            }
+        }
+        catch(RuntimeException exception){
+            consumerFailure = exception;
+        }
+    }
+
+    private void dispatch(int slotIndex){
+        int first = events[slotIndex + 1];
+        int second = events[slotIndex + 2];
+        int third = events[slotIndex + 3];
+        int fourth = events[slotIndex + 4];
+        switch(events[slotIndex]){
+            case MALLOC_FROM_BIN:
+                consumer.onMallocFromBin(first, second, third);
+                break;
+            case MALLOC_FROM_TOP:
+                consumer.onMallocFromTop(first, second);
+                break;
+            case SPLIT:
+                consumer.onSplit(first, second, third, fourth);
+                break;
+            case FREE:
+                consumer.onFree(first, second);
+                break;
+            case COALESCE_PREVIOUS:
+                consumer.onCoalescePrevious(first, second);
+                break;
+            case COALESCE_NEXT:
+                consumer.onCoalesceNext(first, second);
+                break;
+            case MERGE_INTO_TOP:
+                consumer.onMergeIntoTop(first);
+                break;
+            case CHUNK_MOVED:
+                consumer.onChunkMoved(first, second, third);
+                break;
+            case FREE_CHUNK_ADDED:
+                consumer.onFreeChunkAdded(first, second, third);
+                break;
+        }
+    }
+}
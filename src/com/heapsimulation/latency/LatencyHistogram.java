@@ -0,0 +1,113 @@
+package com.heapsimulation.latency;
+
+/**
+ * Histogram of latencies in nanoseconds with logarithmic buckets. Every power of two range is split to linear sub
+ * buckets, so recorded values keep a relative precision of 1/SUB_BUCKET_COUNT while the bucket array stays small.
+ * Percentiles return the highest value of the bucket which holds them.
+ */
+public class LatencyHistogram {
+    private final static int SUB_BUCKET_BITS = 4;
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private final static int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long totalValue = 0;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue = 0;
+
+    /**
+     * Add one latency.
+     * @param value latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long value){
+        if(value < 0){
+            value = 0;
+        }
+
+        counts[getBucketIndex(value)]++;
+        totalCount++;
+        totalValue += value;
+        if(value < minValue){
+            minValue = value;
+        }
+        if(value > maxValue){
+            maxValue = value;
+        }
+    }
+
+    /**
+     * Add all latencies of another histogram.
+     * @param other
+     */
+    public void add(LatencyHistogram other){
+        for(int i = 0; i < BUCKET_COUNT; i++){
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public long getCount(){
+        return totalCount;
+    }
+
+    public long getMin(){
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    public long getMax(){
+        return maxValue;
+    }
+
+    public double getMean(){
+        return totalCount == 0 ? 0 : (double)totalValue / totalCount;
+    }
+
+    /**
+     * Get latency which the given percent of recorded latencies are not more than.
+     * @param percentile between 0 and 100
+     * @return
+     */
+    public long getValueAtPercentile(double percentile){
+        if(totalCount == 0){
+            return 0;
+        }
+
+        long rank = (long)Math.ceil(percentile / 100 * totalCount);
+        rank = Math.max(1, Math.min(rank, totalCount));
+        long cumulativeCount = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++){
+            cumulativeCount += counts[i];
+            if(cumulativeCount >= rank){
+                return Math.min(getBucketHighestValue(i), maxValue);
+            }
+        }
+
+        return maxValue;
+    }
+
+    private static int getBucketIndex(long value){
+        if(value < SUB_BUCKET_COUNT){
+            return (int)value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int)(value >>> shift) - SUB_BUCKET_COUNT;   //drop the highest bit
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long getBucketHighestValue(int bucketIndex){
+        if(bucketIndex < SUB_BUCKET_COUNT){
+            return bucketIndex;
+        }
+
+        int shift = (bucketIndex - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (bucketIndex - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowestValue = (long)(SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,133 @@
+package com.heapsimulation.latency;
+
+import com.heapsimulation.base.HeapUtility;
+
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latency histograms of malloc and free, kept for every bin manager and size class over all of its heaps, and for
+ * the current heap. Size classes are the small bin sizes and one class for larger or invalid sizes.
+ */
+public class LatencyRecorder {
+    public final static int LARGE_SIZE_CLASS = HeapUtility.SMALL_BINS_COUNT;
+    private final static int SIZE_CLASS_COUNT = HeapUtility.SMALL_BINS_COUNT + 1;
+    private final static int MAX_SMALL_SIZE = HeapUtility.SMALL_BINS_COUNT * HeapUtility.CHUNK_UNIT;
+    private final static double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final Map<String, BinManagerHistograms> binManagerHistograms = new LinkedHashMap<>();
+    private BinManagerHistograms currentHistograms = null;
+    private LatencyHistogram heapMallocHistogram = new LatencyHistogram();
+    private LatencyHistogram heapFreeHistogram = new LatencyHistogram();
+
+    /**
+     * Start recording latencies of a new heap.
+     * @param binManagerName name which groups latencies of heaps with the same bin manager
+     */
+    public void startHeap(String binManagerName){
+        currentHistograms = binManagerHistograms.computeIfAbsent(binManagerName, BinManagerHistograms::new);
+        heapMallocHistogram = new LatencyHistogram();
+        heapFreeHistogram = new LatencyHistogram();
+    }
+
+    /**
+     * Record latency of one malloc of the current heap.
+     * @param size requested size
+     * @param nanos
+     */
+    public void recordMalloc(int size, long nanos){
+        currentHistograms.mallocHistograms[getSizeClass(size)].record(nanos);
+        heapMallocHistogram.record(nanos);
+    }
+
+    /**
+     * Record latency of one free of the current heap.
+     * @param size requested size
+     * @param nanos
+     */
+    public void recordFree(int size, long nanos){
+        currentHistograms.freeHistograms[getSizeClass(size)].record(nanos);
+        heapFreeHistogram.record(nanos);
+    }
+
+    /**
+     * Get size class of a requested size, which is its small bin index or LARGE_SIZE_CLASS.
+     * @param size
+     * @return
+     */
+    public static int getSizeClass(int size){
+        if(size <= 0 || size > MAX_SMALL_SIZE){
+            return LARGE_SIZE_CLASS;
+        }
+
+        return HeapUtility.ceilToChunkUnit(size) / HeapUtility.CHUNK_UNIT - 1;
+    }
+
+    /**
+     * Print latencies of the current heap for all size classes together.
+     * @param out writer to print to, it is not flushed
+     */
+    public void printHeapLatencies(PrintWriter out){
+        out.println("Latencies in nanoseconds:");
+        out.println(String.format(Locale.ROOT, "%-12s %10s %10s %8s %8s %8s %8s %8s %10s",
+                "operation", "count", "mean", "p50", "p90", "p99", "p99.9", "p99.99", "max"));
+        printLatencies(out, "malloc", heapMallocHistogram);
+        printLatencies(out, "free", heapFreeHistogram);
+    }
+
+    private void printLatencies(PrintWriter out, String operation, LatencyHistogram histogram){
+        out.print(String.format(Locale.ROOT, "%-12s %10d %10.1f", operation, histogram.getCount(), histogram.getMean()));
+        for(double percentile : PERCENTILES){
+            out.print(String.format(Locale.ROOT, " %8d", histogram.getValueAtPercentile(percentile)));
+        }
+        out.println(String.format(Locale.ROOT, " %10d", histogram.getMax()));
+    }
+
+    /**
+     * Write latencies of all heaps as CSV, one row for each bin manager, operation and recorded size class.
+     * @param out writer to write to, it is not flushed
+     */
+    public void writeCsv(PrintWriter out){
+        out.println("binManager,operation,sizeClass,count,min,mean,p50,p90,p99,p99.9,p99.99,max");
+        for(BinManagerHistograms histograms : binManagerHistograms.values()){
+            writeCsvRows(out, histograms.binManagerName, "malloc", histograms.mallocHistograms);
+            writeCsvRows(out, histograms.binManagerName, "free", histograms.freeHistograms);
+        }
+    }
+
+    private void writeCsvRows(PrintWriter out, String binManagerName, String operation, LatencyHistogram[] histograms){
+        for(int i = 0; i < SIZE_CLASS_COUNT; i++){
+            LatencyHistogram histogram = histograms[i];
+            if(histogram.getCount() == 0){
+                continue;
+            }
+
+            String sizeClass = i == LARGE_SIZE_CLASS ? "large" : Integer.toString((i + 1) * HeapUtility.CHUNK_UNIT);
+            StringBuilder row = new StringBuilder();
+            row.append(binManagerName).append(',').append(operation).append(',').append(sizeClass).append(',')
+                    .append(histogram.getCount()).append(',').append(histogram.getMin()).append(',')
+                    .append(String.format(Locale.ROOT, "%.1f", histogram.getMean()));
+            for(double percentile : PERCENTILES){
+                row.append(',').append(histogram.getValueAtPercentile(percentile));
+            }
+            row.append(',').append(histogram.getMax());
+            out.println(row);
+        }
+    }
+
+    private static class BinManagerHistograms {
+        private final String binManagerName;
+        private final LatencyHistogram[] mallocHistograms = new LatencyHistogram[SIZE_CLASS_COUNT];
+        private final LatencyHistogram[] freeHistograms = new LatencyHistogram[SIZE_CLASS_COUNT];
+
+        private BinManagerHistograms(String binManagerName){
+            this.binManagerName = binManagerName;
+            for(int i = 0; i < SIZE_CLASS_COUNT; i++){
+                mallocHistograms[i] = new LatencyHistogram();
+                freeHistograms[i] = new LatencyHistogram();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.heapsimulation.pipeline;
+
+import com.heapsimulation.binmanaging.*;
+import com.heapsimulation.trace.*;
+
+/**
+ * Parse stage end, which writes commands received from a trace parser into the command ring.
+ */
+class CommandEncoder implements ITraceCommandHandler {
+    private final IntRingBuffer commands;
+
+    CommandEncoder(IntRingBuffer commands){
+        this.commands = commands;
+    }
+
+    @Override
+    public void onSetBinManager(BinManagerType binManagerType){
+        send(PipelineRecords.COMMAND_SET_BIN_MANAGER, binManagerType.ordinal());
+    }
+
+    @Override
+    public void onMalloc(int size){
+        send(PipelineRecords.COMMAND_MALLOC, size);
+    }
+
+    @Override
+    public void onFree(int size){
+        send(PipelineRecords.COMMAND_FREE, size);
+    }
+
+    @Override
+    public boolean onMallocAllocation(int allocationId, int size){
+        send(PipelineRecords.COMMAND_MALLOC_ALLOCATION, allocationId, size);
+        //result is known by execution stage only, which skips frees of failed allocations
+        return true;
+    }
+
+    @Override
+    public void onFreeAllocation(int allocationId, int size){
+        send(PipelineRecords.COMMAND_FREE_ALLOCATION, allocationId, size);
+    }
+
+    @Override
+    public void onInvalidBinManager(){
+        send(PipelineRecords.COMMAND_INVALID_BIN_MANAGER);
+    }
+
+    @Override
+    public void onInvalidAllocationSize(){
+        send(PipelineRecords.COMMAND_INVALID_ALLOCATION_SIZE);
+    }
+
+    @Override
+    public void onInvalidDeAllocationSize(){
+        send(PipelineRecords.COMMAND_INVALID_DEALLOCATION_SIZE);
+    }
+
+    @Override
+    public void onInvalidCommand(){
+        send(PipelineRecords.COMMAND_INVALID);
+    }
+
+    /**
+     * Tell execution stage that there is no more command.
+     * @param printHeapEndInfo print end info of the last heap, false when commands have been cut by a read failure
+     */
+    void finish(boolean printHeapEndInfo){
+        send(PipelineRecords.COMMAND_END, printHeapEndInfo ? 1 : 0);
+    }
+
+    private void send(int type){
+        commands.put(type);
+        commands.publish();
+    }
+
+    private void send(int type, int argument){
+        commands.put(type);
+        commands.put(argument);
+        commands.publish();
+    }
+
+    private void send(int type, int firstArgument, int secondArgument){
+        commands.put(type);
+        commands.put(firstArgument);
+        commands.put(secondArgument);
+        commands.publish();
+    }
+}
@@ -0,0 +1,188 @@
+package com.heapsimulation.pipeline;
+
+import com.heapsimulation.OutputMode;
+import com.heapsimulation.base.HandleTable;
+import com.heapsimulation.base.HeapUtility;
+import com.heapsimulation.base.MemoryHeap;
+import com.heapsimulation.binmanaging.*;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Execution stage, the only stage which touches heaps. It runs commands in the same way as CommandProcessor, but
+ * writes heap state needed by output as ints into the result ring instead of printing it.
+ */
+class HeapExecutionStage implements Runnable {
+    private final IntRingBuffer commands;
+    private final IntRingBuffer results;
+    private final OutputMode outputMode;
+    private final int checkpointInterval;
+    private final int heapSize;
+    private final BinManagerType[] binManagerTypes = BinManagerType.values();
+    private final int[] freeChunkCounts = new int[HeapUtility.SMALL_BINS_COUNT];
+    private final IntConsumer chunkIndexWriter;
+    private MemoryHeap heap = null;
+    private long operationCount = 0;
+    //handles of generated workload allocations by allocation id
+    private long[] allocationHandles = new long[0];
+
+    HeapExecutionStage(IntRingBuffer commands, IntRingBuffer results, OutputMode outputMode, int checkpointInterval,
+                       int heapSize){
+        this.commands = commands;
+        this.results = results;
+        this.outputMode = outputMode;
+        this.checkpointInterval = checkpointInterval;
+        this.heapSize = heapSize;
+        chunkIndexWriter = results::put;
+    }
+
+    @Override
+    public void run(){
+        while(true){
+            int type = commands.take();
+            switch(type){
+                case PipelineRecords.COMMAND_SET_BIN_MANAGER:
+                    writeHeapEndInfo();
+                    int binManagerTypeOrdinal = commands.take();
+                    heap = new MemoryHeap(heapSize, binManagerTypes[binManagerTypeOrdinal].create());
+                    results.put(PipelineRecords.RESULT_HEAP_CREATED);
+                    results.put(binManagerTypeOrdinal);
+                    break;
+                case PipelineRecords.COMMAND_MALLOC:
+                    processAllocation(commands.take());
+                    break;
+                case PipelineRecords.COMMAND_FREE:
+                    processDeAllocation(commands.take());
+                    break;
+                case PipelineRecords.COMMAND_MALLOC_ALLOCATION:
+                    int mallocAllocationId = commands.take();
+                    processAllocation(mallocAllocationId, commands.take());
+                    break;
+                case PipelineRecords.COMMAND_FREE_ALLOCATION:
+                    int freeAllocationId = commands.take();
+                    processDeAllocation(freeAllocationId, commands.take());
+                    break;
+                case PipelineRecords.COMMAND_INVALID_BIN_MANAGER:
+                    writeHeapEndInfo();
+                    results.put(PipelineRecords.RESULT_INVALID_BIN_MANAGER);
+                    break;
+                case PipelineRecords.COMMAND_INVALID_ALLOCATION_SIZE:
+                    results.put(PipelineRecords.RESULT_INVALID_ALLOCATION_SIZE);
+                    break;
+                case PipelineRecords.COMMAND_INVALID_DEALLOCATION_SIZE:
+                    results.put(PipelineRecords.RESULT_INVALID_DEALLOCATION_SIZE);
+                    break;
+                case PipelineRecords.COMMAND_INVALID:
+                    results.put(PipelineRecords.RESULT_INVALID_COMMAND);
+                    break;
+                case PipelineRecords.COMMAND_END:
+                    if(commands.take() != 0){
+                        writeHeapEndInfo();
+                    }
+                    results.put(PipelineRecords.RESULT_END);
+                    results.publish();
+                    return;
+                default:
+                    throw new IllegalStateException("Unknown command record " + type);
+            }
+            results.publish();
+        }
+    }
+
+    private void processAllocation(int size){
+        if(heap == null){
+            results.put(PipelineRecords.RESULT_NO_HEAP);
+            return;
+        }
+
+        writeAllocation(heap.malloc(size), size);
+    }
+
+    private void processAllocation(int allocationId, int size){
+        if(heap == null){
+            results.put(PipelineRecords.RESULT_NO_HEAP);
+            return;
+        }
+
+        if(allocationId >= allocationHandles.length){
+            allocationHandles = Arrays.copyOf(allocationHandles, Math.max(16, (allocationId + 1) * 2));
+        }
+        allocationHandles[allocationId] = heap.mallocHandle(size);
+        writeAllocation(allocationHandles[allocationId] != HandleTable.NO_HANDLE, size);
+    }
+
+    private void writeAllocation(boolean succeeded, int size){
+        if(outputMode == OutputMode.FULL){
+            results.put(PipelineRecords.RESULT_MALLOC);
+            results.put(succeeded ? 1 : 0);
+            results.put(size);
+            writeAllocatedChunks();
+        }
+        else{
+            countOperation();
+        }
+    }
+
+    private void processDeAllocation(int size){
+        if(heap == null){
+            results.put(PipelineRecords.RESULT_NO_HEAP);
+            return;
+        }
+
+        writeDeAllocation(heap.free(size), size);
+    }
+
+    private void processDeAllocation(int allocationId, int size){
+        //sequential processing tells the generator about failed allocations, which are never freed then
+        if(heap == null || allocationHandles[allocationId] == HandleTable.NO_HANDLE){
+            return;
+        }
+
+        writeDeAllocation(heap.freeHandle(allocationHandles[allocationId]), size);
+    }
+
+    private void writeDeAllocation(boolean succeeded, int size){
+        if(outputMode == OutputMode.FULL){
+            results.put(PipelineRecords.RESULT_FREE);
+            results.put(succeeded ? 1 : 0);
+            results.put(size);
+            writeBins();
+        }
+        else{
+            countOperation();
+        }
+    }
+
+    private void countOperation(){
+        operationCount++;
+        if(outputMode == OutputMode.CHECKPOINT && operationCount % checkpointInterval == 0){
+            results.put(PipelineRecords.RESULT_CHECKPOINT);
+            results.put((int)(operationCount >>> Integer.SIZE));
+            results.put((int)operationCount);
+            writeBins();
+            writeAllocatedChunks();
+        }
+    }
+
+    private void writeHeapEndInfo(){
+        if(heap != null){
+            results.put(PipelineRecords.RESULT_HEAP_END_INFO);
+            writeBins();
+            writeAllocatedChunks();
+        }
+    }
+
+    private void writeBins(){
+        heap.getBinFreeChunkCounts(freeChunkCounts);
+        for(int freeChunkCount : freeChunkCounts){
+            results.put(freeChunkCount);
+        }
+    }
+
+    private void writeAllocatedChunks(){
+        heap.forEachAllocatedChunk(chunkIndexWriter);
+        results.put(PipelineRecords.NO_MORE_CHUNKS);
+        results.put(heap.getTopIndex());
+    }
+}
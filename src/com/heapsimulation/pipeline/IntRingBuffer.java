@@ -0,0 +1,111 @@
+package com.heapsimulation.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single producer single consumer stream of ints. Producer puts ints and makes them visible with publish, so
+ * a record of several ints costs one ordered store. Consumer takes ints one by one and releases their slots in
+ * batches. Both sides wait by spinning shortly and then parking, and a closed ring stops waiting sides.
+ */
+class IntRingBuffer {
+    private final static int SPIN_COUNT = 100;
+    private final static long IDLE_PARK_NANOS = 20_000;
+
+    private final int[] values;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong publishedSequence = new AtomicLong();
+    private final AtomicLong consumedSequence = new AtomicLong();
+    private volatile boolean closed = false;
+
+    //only used by producer
+    private long nextSequence = 0;
+    private long knownConsumedSequence = 0;
+
+    //only used by consumer
+    private long sequence = 0;
+    private long knownPublishedSequence = 0;
+
+    /**
+     * @param capacity count of ints which fit in ring, it is ceiled to a power of two
+     */
+    IntRingBuffer(int capacity){
+        if(capacity <= 0 || capacity > (1 << 24)){
+            throw new IllegalArgumentException("Ring capacity must be between 1 and 2^24");
+        }
+
+        this.capacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        mask = this.capacity - 1;
+        values = new int[this.capacity];
+    }
+
+    /**
+     * Write a value which consumer can take after the next publish. Must only be called by the producer thread.
+     * @param value
+     */
+    void put(int value){
+        if(nextSequence - knownConsumedSequence >= capacity){
+            //ring is full, consumer may be waiting for the values of the unfinished record
+            publish();
+            knownConsumedSequence = consumedSequence.get();
+            int spinCount = 0;
+            while(nextSequence - knownConsumedSequence >= capacity){
+                spinCount = waitOnce(spinCount);
+                knownConsumedSequence = consumedSequence.get();
+            }
+        }
+
+        values[(int)(nextSequence & mask)] = value;
+        nextSequence++;
+    }
+
+    /**
+     * Make all put values visible to consumer. Must only be called by the producer thread.
+     */
+    void publish(){
+        //ordered store makes values visible before the sequence, without a full fence
+        publishedSequence.lazySet(nextSequence);
+    }
+
+    /**
+     * Take the next published value, waiting for producer if there is none. Must only be called by the consumer thread.
+     * @return
+     */
+    int take(){
+        if(sequence == knownPublishedSequence){
+            //release taken slots before waiting, so producer never waits for them
+            consumedSequence.lazySet(sequence);
+            knownPublishedSequence = publishedSequence.get();
+            int spinCount = 0;
+            while(sequence == knownPublishedSequence){
+                spinCount = waitOnce(spinCount);
+                knownPublishedSequence = publishedSequence.get();
+            }
+        }
+
+        int value = values[(int)(sequence & mask)];
+        sequence++;
+        return value;
+    }
+
+    /**
+     * Stop waiting of both sides, they throw IllegalStateException instead. Used when the other side has failed.
+     */
+    void close(){
+        closed = true;
+    }
+
+    private int waitOnce(int spinCount){
+        if(closed){
+            throw new IllegalStateException("Ring is closed");
+        }
+        if(spinCount < SPIN_COUNT){
+            Thread.onSpinWait();
+            return spinCount + 1;
+        }
+
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+        return spinCount;
+    }
+}
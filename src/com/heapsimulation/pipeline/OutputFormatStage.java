@@ -0,0 +1,102 @@
+package com.heapsimulation.pipeline;
+
+import com.heapsimulation.CommandMessages;
+import com.heapsimulation.base.HeapUtility;
+import com.heapsimulation.base.MemoryHeap;
+import com.heapsimulation.binmanaging.*;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Output stage, which formats results of the execution stage into the same text as CommandProcessor prints.
+ */
+class OutputFormatStage implements Runnable {
+    private final IntRingBuffer results;
+    private final PrintWriter out;
+    private final String[] binManagerNames;
+    private final int[] freeChunkCounts = new int[HeapUtility.SMALL_BINS_COUNT];
+    private int[] chunkIndices = new int[64];
+
+    OutputFormatStage(IntRingBuffer results, PrintWriter out){
+        this.results = results;
+        this.out = out;
+        BinManagerType[] binManagerTypes = BinManagerType.values();
+        binManagerNames = new String[binManagerTypes.length];
+        for(int i = 0; i < binManagerTypes.length; i++){
+            binManagerNames[i] = binManagerTypes[i].create().getClass().getSimpleName();
+        }
+    }
+
+    @Override
+    public void run(){
+        while(true){
+            int type = results.take();
+            switch(type){
+                case PipelineRecords.RESULT_HEAP_CREATED:
+                    out.println(CommandMessages.heapCreated(binManagerNames[results.take()]));
+                    break;
+                case PipelineRecords.RESULT_MALLOC:
+                    out.println(CommandMessages.allocation(results.take() != 0, results.take()));
+                    printAllocatedChunks();
+                    break;
+                case PipelineRecords.RESULT_FREE:
+                    out.println(CommandMessages.deAllocation(results.take() != 0, results.take()));
+                    printBins();
+                    break;
+                case PipelineRecords.RESULT_CHECKPOINT:
+                    long operationCount = ((long)results.take() << Integer.SIZE) | (results.take() & 0xFFFFFFFFL);
+                    out.println(CommandMessages.checkpoint(operationCount));
+                    printBins();
+                    printAllocatedChunks();
+                    break;
+                case PipelineRecords.RESULT_HEAP_END_INFO:
+                    out.println();
+                    out.println(CommandMessages.HEAP_END_INFO);
+                    printBins();
+                    printAllocatedChunks();
+                    out.println();
+                    break;
+                case PipelineRecords.RESULT_NO_HEAP:
+                    out.println(CommandMessages.NO_HEAP);
+                    break;
+                case PipelineRecords.RESULT_INVALID_BIN_MANAGER:
+                    out.println(CommandMessages.INVALID_BIN_MANAGER);
+                    break;
+                case PipelineRecords.RESULT_INVALID_ALLOCATION_SIZE:
+                    out.println(CommandMessages.INVALID_ALLOCATION_SIZE);
+                    break;
+                case PipelineRecords.RESULT_INVALID_DEALLOCATION_SIZE:
+                    out.println(CommandMessages.INVALID_DEALLOCATION_SIZE);
+                    break;
+                case PipelineRecords.RESULT_INVALID_COMMAND:
+                    out.println(CommandMessages.INVALID_COMMAND);
+                    break;
+                case PipelineRecords.RESULT_END:
+                    return;
+                default:
+                    throw new IllegalStateException("Unknown result record " + type);
+            }
+        }
+    }
+
+    private void printBins(){
+        for(int i = 0; i < freeChunkCounts.length; i++){
+            freeChunkCounts[i] = results.take();
+        }
+        MemoryHeap.printBins(freeChunkCounts, out);
+    }
+
+    private void printAllocatedChunks(){
+        int chunkCount = 0;
+        int chunkIndex;
+        while((chunkIndex = results.take()) != PipelineRecords.NO_MORE_CHUNKS){
+            if(chunkCount == chunkIndices.length){
+                chunkIndices = Arrays.copyOf(chunkIndices, chunkCount * 2);
+            }
+            chunkIndices[chunkCount] = chunkIndex;
+            chunkCount++;
+        }
+        MemoryHeap.printAllocatedChunks(chunkIndices, chunkCount, results.take(), out);
+    }
+}
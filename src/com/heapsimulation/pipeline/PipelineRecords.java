@@ -0,0 +1,34 @@
+package com.heapsimulation.pipeline;
+
+/**
+ * Record types of pipeline rings. Every record is its type followed by its ints.
+ */
+final class PipelineRecords {
+    //commands, from parse stage to execution stage
+    final static int COMMAND_SET_BIN_MANAGER = 0;          //bin manager type ordinal
+    final static int COMMAND_MALLOC = 1;                   //size
+    final static int COMMAND_FREE = 2;                     //size
+    final static int COMMAND_INVALID_BIN_MANAGER = 3;
+    final static int COMMAND_INVALID_ALLOCATION_SIZE = 4;
+    final static int COMMAND_INVALID_DEALLOCATION_SIZE = 5;
+    final static int COMMAND_INVALID = 6;
+    final static int COMMAND_END = 7;                      //print heap end info flag
+    final static int COMMAND_MALLOC_ALLOCATION = 8;        //allocation id, size
+    final static int COMMAND_FREE_ALLOCATION = 9;          //allocation id, size
+
+    //results, from execution stage to output stage
+    //bins are SMALL_BINS_COUNT free chunk counts, allocated chunks are chunk indices, NO_MORE_CHUNKS and top index
+    final static int RESULT_HEAP_CREATED = 0;              //bin manager type ordinal
+    final static int RESULT_MALLOC = 1;                    //succeeded flag, size, allocated chunks
+    final static int RESULT_FREE = 2;                      //succeeded flag, size, bins
+    final static int RESULT_CHECKPOINT = 3;                //high and low ints of operation count, bins, allocated chunks
+    final static int RESULT_HEAP_END_INFO = 4;             //bins, allocated chunks
+    final static int RESULT_NO_HEAP = 5;
+    final static int RESULT_INVALID_BIN_MANAGER = 6;
+    final static int RESULT_INVALID_ALLOCATION_SIZE = 7;
+    final static int RESULT_INVALID_DEALLOCATION_SIZE = 8;
+    final static int RESULT_INVALID_COMMAND = 9;
+    final static int RESULT_END = 10;
+
+    final static int NO_MORE_CHUNKS = -1;
+}
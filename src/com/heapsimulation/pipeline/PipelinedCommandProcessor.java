@@ -0,0 +1,153 @@
+package com.heapsimulation.pipeline;
+
+import com.heapsimulation.OutputMode;
+import com.heapsimulation.base.MemoryHeap;
+import com.heapsimulation.trace.*;
+import com.heapsimulation.workload.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process commands like CommandProcessor with the same output, but in three stages on separate threads: parsing on
+ * the calling thread, heap execution, and output formatting. Stages are connected by single producer single consumer
+ * rings, so reading and formatting overlap with simulation on multi-core machines.
+ */
+public class PipelinedCommandProcessor {
+    private final static int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private final static int RING_CAPACITY = 1 << 16;
+
+    private final PrintWriter out;
+    private final OutputMode outputMode;
+    private final int checkpointInterval;
+    private int heapSize = MemoryHeap.DEFAULT_HEAP_SIZE;
+
+    /**
+     * Source of commands which is parsed on the calling thread.
+     */
+    private interface ITraceSource {
+        void replay(ITraceCommandHandler handler) throws IOException;
+    }
+
+    /**
+     * @param outputMode
+     * @param checkpointInterval count of malloc and free commands between checkpoints, used by CHECKPOINT mode
+     */
+    public PipelinedCommandProcessor(OutputMode outputMode, int checkpointInterval){
+        this(new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), OUTPUT_BUFFER_SIZE)), outputMode, checkpointInterval);
+    }
+
+    public PipelinedCommandProcessor(PrintWriter out, OutputMode outputMode, int checkpointInterval){
+        if(outputMode == OutputMode.CHECKPOINT && checkpointInterval <= 0){
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+
+        this.out = out;
+        this.outputMode = outputMode;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Set memory size of heaps created by setBinManager.
+     * @param heapSize
+     */
+    public void setHeapSize(int heapSize){
+        if(heapSize <= 0){
+            throw new IllegalArgumentException("Heap size must be positive");
+        }
+
+        this.heapSize = heapSize;
+    }
+
+    public void processFile(String filePath){
+        if(filePath != null){
+            process(handler -> new StreamingTraceParser().parse(filePath, handler));
+        }
+    }
+
+    /**
+     * Process commands of a binary trace file written by BinaryTraceWriter.
+     * @param filePath
+     */
+    public void processBinaryFile(String filePath){
+        if(filePath != null){
+            process(handler -> new BinaryTraceReplayer().replay(filePath, handler));
+        }
+    }
+
+    /**
+     * Process commands generated by workload generator, without writing them to a trace file.
+     * @param generator
+     */
+    public void processWorkload(WorkloadGenerator generator){
+        process(generator::generate);
+    }
+
+    private void process(ITraceSource source){
+        IntRingBuffer commands = new IntRingBuffer(RING_CAPACITY);
+        IntRingBuffer results = new IntRingBuffer(RING_CAPACITY);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread executionThread = startStage(new HeapExecutionStage(commands, results, outputMode, checkpointInterval, heapSize),
+                "heap-execution", commands, results, failure);
+        Thread outputThread = startStage(new OutputFormatStage(results, out), "heap-output", commands, results, failure);
+
+        try{
+            CommandEncoder encoder = new CommandEncoder(commands);
+            boolean completed = false;
+            try{
+                source.replay(encoder);
+                completed = true;
+            }
+            catch(IOException exception){
+                exception.printStackTrace();
+            }
+            encoder.finish(completed);
+        }
+        catch(RuntimeException exception){
+            //stops the other stages, a closed ring fails here if another stage has failed first
+            stageFailed(exception, commands, results, failure);
+        }
+
+        joinStage(executionThread);
+        joinStage(outputThread);
+        out.flush();
+        if(failure.get() != null){
+            throw new IllegalStateException("Pipelined processing failed", failure.get());
+        }
+    }
+
+    private static Thread startStage(Runnable stage, String name, IntRingBuffer commands, IntRingBuffer results,
+                                     AtomicReference<RuntimeException> failure){
+        Thread thread = new Thread(() -> {
+            try{
+                stage.run();
+            }
+            catch(RuntimeException exception){
+                stageFailed(exception, commands, results, failure);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void stageFailed(RuntimeException exception, IntRingBuffer commands, IntRingBuffer results,
+                                    AtomicReference<RuntimeException> failure){
+        //first failure is the cause, later ones are stages stopped by closed rings
+        failure.compareAndSet(null, exception);
+        commands.close();
+        results.close();
+    }
+
+    private static void joinStage(Thread thread){
+        try{
+            thread.join();
+        }
+        catch(InterruptedException exception){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.heapsimulation.service;
+
+import com.heapsimulation.base.MemoryHeap;
+import com.heapsimulation.binmanaging.*;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of released heaps with the same size, which are reset and reused instead of allocating new memory for
+ * every simulation. Safe to use from any thread.
+ */
+public class HeapPool {
+    private final ConcurrentLinkedDeque<MemoryHeap> idleHeaps = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleHeapCount = new AtomicInteger();
+    private final int heapSize;
+    private final int maxIdleHeapCount;
+
+    /**
+     * @param maxIdleHeapCount count of released heaps kept for reuse, more released heaps are dropped
+     */
+    public HeapPool(int maxIdleHeapCount){
+        this(MemoryHeap.DEFAULT_HEAP_SIZE, maxIdleHeapCount);
+    }
+
+    /**
+     * @param heapSize memory size of created heaps
+     * @param maxIdleHeapCount count of released heaps kept for reuse, more released heaps are dropped
+     */
+    public HeapPool(int heapSize, int maxIdleHeapCount){
+        if(heapSize <= 0){
+            throw new IllegalArgumentException("Heap size must be positive");
+        }
+
+        this.heapSize = heapSize;
+        this.maxIdleHeapCount = maxIdleHeapCount;
+    }
+
+    /**
+     * Get an empty heap with the bin manager.
+     * @param binManager
+     * @return
+     */
+    public MemoryHeap acquire(IBinManager binManager){
+        MemoryHeap heap = idleHeaps.pollFirst();
+        if(heap == null){
+            return new MemoryHeap(heapSize, binManager);
+        }
+
+        idleHeapCount.decrementAndGet();
+        heap.reset(binManager);
+        return heap;
+    }
+
+    /**
+     * Return a heap which is no longer used.
+     * @param heap
+     */
+    public void release(MemoryHeap heap){
+        if(idleHeapCount.incrementAndGet() <= maxIdleHeapCount){
+            idleHeaps.addFirst(heap);
+        }
+        else{
+            idleHeapCount.decrementAndGet();
+        }
+    }
+
+    public int getIdleHeapCount(){
+        return idleHeapCount.get();
+    }
+}
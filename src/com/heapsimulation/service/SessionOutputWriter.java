@@ -0,0 +1,53 @@
+package com.heapsimulation.service;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * Writer of one session, which prefixes every complete line with the session id and writes it to the shared output.
+ * Lines of different sessions are never mixed because a whole line is written while holding the shared output lock.
+ */
+class SessionOutputWriter extends Writer {
+    private final String sessionId;
+    private final PrintWriter sink;
+    private final StringBuilder line = new StringBuilder();
+
+    SessionOutputWriter(String sessionId, PrintWriter sink){
+        this.sessionId = sessionId;
+        this.sink = sink;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length){
+        for(int i = offset; i < offset + length; i++){
+            char c = chars[i];
+            if(c == '\n'){
+                writeLine();
+            }
+            else if(c != '\r'){
+                line.append(c);
+            }
+        }
+    }
+
+    private void writeLine(){
+        synchronized(sink){
+            sink.print(sessionId);
+            sink.print(' ');
+            sink.println(line);
+        }
+        line.setLength(0);
+    }
+
+    @Override
+    public void flush(){
+        synchronized(sink){
+            sink.flush();
+        }
+    }
+
+    @Override
+    public void close(){
+        flush();
+    }
+}
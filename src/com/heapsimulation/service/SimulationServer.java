@@ -0,0 +1,56 @@
+package com.heapsimulation.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serve the multiplexed protocol of SimulationService on a local socket. Every connection is an independent input
+ * with its own session ids, and its output is written back to the same connection.
+ */
+public class SimulationServer {
+    private final int port;
+    private final SimulationService service;
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+
+    public SimulationServer(int port, SimulationService service){
+        this.port = port;
+        this.service = service;
+    }
+
+    /**
+     * Accept connections on the loopback address until the server socket fails.
+     * @throws IOException
+     */
+    public void run() throws IOException{
+        try(ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())){
+            while(!serverSocket.isClosed()){
+                Socket socket = serverSocket.accept();
+                connectionExecutor.execute(() -> serveConnection(socket));
+            }
+        }
+        finally{
+            connectionExecutor.shutdown();
+        }
+    }
+
+    private void serveConnection(Socket socket){
+        try(Socket connection = socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)))){
+            service.serve(in, out);
+        }
+        catch(IOException exception){
+            exception.printStackTrace();
+        }
+    }
+}
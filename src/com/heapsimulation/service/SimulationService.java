@@ -0,0 +1,109 @@
+package com.heapsimulation.service;
+
+import com.heapsimulation.CommandProcessor;
+import com.heapsimulation.OutputMode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Phaser;
+
+/**
+ * Run many independent simulations in one process. Every input line is "sessionId command", commands of each session
+ * id are processed in order by the session's own heap, and every output line is prefixed by its session id.
+ * "sessionId end" prints heap end info of the session and returns its heap to the pool, sessions which are not ended
+ * at the end of input are ended then.
+ */
+public class SimulationService {
+    private final static String INVALID_SESSION_COMMAND_ERROR = "Invalid session command!";
+    //a phaser has at most 65535 parties, so sessions are registered to child phasers of the waiting one
+    private final static int MAX_SESSIONS_PER_PHASER = 1 << 15;
+
+    private final Executor executor;
+    private final HeapPool heapPool;
+    private final OutputMode outputMode;
+    private final int checkpointInterval;
+
+    /**
+     * @param executor executor running commands of sessions
+     * @param heapPool pool of heaps shared by all sessions
+     * @param outputMode output mode of every session
+     * @param checkpointInterval used by CHECKPOINT mode
+     */
+    public SimulationService(Executor executor, HeapPool heapPool, OutputMode outputMode, int checkpointInterval){
+        if(outputMode == OutputMode.CHECKPOINT && checkpointInterval <= 0){
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+
+        this.executor = executor;
+        this.heapPool = heapPool;
+        this.outputMode = outputMode;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Read multiplexed commands until end of input and wait for all sessions to finish. Session ids are local to
+     * one call, so several inputs can be served at the same time.
+     * @param in
+     * @param out shared output of all sessions
+     * @throws IOException
+     */
+    public void serve(BufferedReader in, PrintWriter out) throws IOException{
+        Map<String, SimulationSession> sessions = new HashMap<>();
+        //the reading thread is a party too, so waiting ends when all registered sessions have ended
+        Phaser phaser = new Phaser(1);
+        Phaser sessionPhaser = new Phaser(phaser);
+        try{
+            String line;
+            while((line = in.readLine()) != null){
+                if(line.isEmpty()){
+                    continue;
+                }
+
+                int separatorIndex = line.indexOf(' ');
+                if(separatorIndex <= 0){
+                    synchronized(out){
+                        out.println(INVALID_SESSION_COMMAND_ERROR);
+                    }
+                    continue;
+                }
+
+                String sessionId = line.substring(0, separatorIndex);
+                String command = line.substring(separatorIndex + 1);
+                SimulationSession session = sessions.get(sessionId);
+                if(session == null){
+                    //only this thread registers, so the count can not grow after the check
+                    if(sessionPhaser.getRegisteredParties() == MAX_SESSIONS_PER_PHASER){
+                        sessionPhaser = new Phaser(phaser);
+                    }
+                    session = createSession(sessionId, out, sessionPhaser);
+                    sessions.put(sessionId, session);
+                }
+                session.submit(command);
+                if(command.equals(SimulationSession.END_COMMAND)){
+                    sessions.remove(sessionId);
+                }
+            }
+        }
+        finally{
+            for(SimulationSession session : sessions.values()){
+                session.submit(SimulationSession.END_COMMAND);
+            }
+            phaser.arriveAndAwaitAdvance();
+            synchronized(out){
+                out.flush();
+            }
+        }
+    }
+
+    private SimulationSession createSession(String sessionId, PrintWriter out, Phaser phaser){
+        PrintWriter sessionOut = new PrintWriter(new SessionOutputWriter(sessionId, out));
+        CommandProcessor processor = new CommandProcessor(sessionOut, outputMode, checkpointInterval);
+        processor.setHeapPool(heapPool);
+        phaser.register();
+        return new SimulationSession(processor, sessionOut, executor, phaser);
+    }
+}
@@ -0,0 +1,113 @@
+package com.heapsimulation.service;
+
+import com.heapsimulation.CommandProcessor;
+
+import java.io.PrintWriter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One simulation driven by its own command processor. Commands are queued and run in order by at most one executor
+ * thread at a time, so a session behaves like a thread of its own while many sessions share a few threads.
+ * A command which fails ends the session, its later commands are dropped.
+ */
+class SimulationSession {
+    final static String END_COMMAND = "end";
+    //commands run before giving the thread to other sessions
+    private final static int MAX_BATCH_SIZE = 1024;
+    private final static String SESSION_FAILED_ERROR = "Session failed: ";
+
+    private final CommandProcessor processor;
+    private final PrintWriter out;
+    private final Executor executor;
+    private final Phaser phaser;
+    private final Queue<String> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    //only used by the running batch, batches are ordered by the scheduled flag
+    private boolean ended = false;
+
+    /**
+     * @param processor processor writing to the session output
+     * @param out session output, which failures are reported to
+     * @param executor shared executor running commands of all sessions
+     * @param phaser phaser which the session is registered to, it arrives and deregisters when session ends
+     */
+    SimulationSession(CommandProcessor processor, PrintWriter out, Executor executor, Phaser phaser){
+        this.processor = processor;
+        this.out = out;
+        this.executor = executor;
+        this.phaser = phaser;
+    }
+
+    /**
+     * Queue a command, END_COMMAND finishes the session and no commands may be submitted after it.
+     * @param command
+     */
+    void submit(String command){
+        commands.add(command);
+        if(scheduled.compareAndSet(false, true)){
+            executor.execute(this::runCommands);
+        }
+    }
+
+    private void runCommands(){
+        try{
+            if(ended){
+                //commands after a failure
+                commands.clear();
+            }
+            else{
+                runBatch();
+            }
+        }
+        catch(RuntimeException exception){
+            fail(exception);
+        }
+        finally{
+            scheduled.set(false);
+            //commands submitted after the last poll and before clearing scheduled flag
+            if(!commands.isEmpty() && scheduled.compareAndSet(false, true)){
+                executor.execute(this::runCommands);
+            }
+        }
+    }
+
+    private void runBatch(){
+        int commandCount = 0;
+        String command;
+        while(commandCount < MAX_BATCH_SIZE && (command = commands.poll()) != null){
+            if(command.equals(END_COMMAND)){
+                processor.finish();
+                end();
+                return;
+            }
+            processor.processCommand(command);
+            commandCount++;
+        }
+        processor.flush();
+    }
+
+    /**
+     * Report the failure to the session output and end the session, so serving does not wait for it.
+     * @param exception
+     */
+    private void fail(RuntimeException exception){
+        try{
+            out.println(SESSION_FAILED_ERROR + exception);
+            //heap state is unknown, so it is dropped instead of returned to the pool
+            processor.abandon();
+        }
+        finally{
+            out.flush();
+            end();
+        }
+    }
+
+    private void end(){
+        ended = true;
+        phaser.arriveAndDeregister();
+    }
+}
@@ -0,0 +1,15 @@
+package com.heapsimulation.telemetry;
+
+/**
+ * Telemetry file layout. Compatible with TelemetrySampler and TelemetryReader.
+ * Header: magic(Integer bytes, big endian) + version(one byte) + bins count(one byte)
+ * Body: blocks until end of file, each block is samples count(Integer bytes) + columns. A column keeps one value of
+ * every sample of the block: heap number(Integer bytes), operation number in heap(Long bytes), top index(Integer
+ * bytes), live bytes(Long bytes), largest free chunk size(Integer bytes), then free chunk count(Integer bytes) of every
+ * bin from bin1. Blocks are only appended, so a file cut while writing loses only its last block.
+ */
+public final class TelemetryFormat {
+    public final static int MAGIC = 0x4853544D;  //HSTM
+    public final static byte VERSION = 1;
+    public final static int DEFAULT_BLOCK_SAMPLES = 1024;
+}
@@ -0,0 +1,123 @@
+package com.heapsimulation.telemetry;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Read a telemetry file written by TelemetrySampler and export it as CSV, one row per sample.
+ */
+public class TelemetryReader {
+
+    /**
+     * Write samples of the telemetry file as CSV with a header row. A cut last block is ignored.
+     * @param filePath telemetry file
+     * @param out writer to print to, it is not flushed
+     * @throws IOException
+     */
+    public void exportCsv(String filePath, PrintWriter out) throws IOException{
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)))){
+            if(in.readInt() != TelemetryFormat.MAGIC){
+                throw new IOException("Not a telemetry file: " + filePath);
+            }
+            byte version = in.readByte();
+            if(version != TelemetryFormat.VERSION){
+                throw new IOException("Unsupported telemetry version " + version);
+            }
+            int binsCount = in.readUnsignedByte();
+
+            out.print("heap,operation,topIndex,liveBytes,largestFreeChunk");
+            for(int i = 1; i <= binsCount; i++){
+                out.print(",bin");
+                out.print(i);
+            }
+            out.println();
+
+            while(true){
+                int sampleCount;
+                try{
+                    sampleCount = in.readInt();
+                }
+                catch(EOFException exception){
+                    return;
+                }
+
+                if(sampleCount <= 0){
+                    throw new IOException("Invalid telemetry block samples count " + sampleCount);
+                }
+                Block block = new Block(sampleCount, binsCount);
+                try{
+                    block.read(in);
+                }
+                catch(EOFException exception){
+                    //last block was cut while writing
+                    return;
+                }
+                block.print(out);
+            }
+        }
+    }
+
+    private static class Block {
+        private final int sampleCount;
+        private final int[] heapNumbers;
+        private final long[] operationNumbers;
+        private final int[] topIndices;
+        private final long[] liveBytes;
+        private final int[] largestFreeChunkSizes;
+        private final int[][] binFreeChunkCounts;
+
+        private Block(int sampleCount, int binsCount){
+            this.sampleCount = sampleCount;
+            heapNumbers = new int[sampleCount];
+            operationNumbers = new long[sampleCount];
+            topIndices = new int[sampleCount];
+            liveBytes = new long[sampleCount];
+            largestFreeChunkSizes = new int[sampleCount];
+            binFreeChunkCounts = new int[binsCount][sampleCount];
+        }
+
+        private void read(DataInputStream in) throws IOException{
+            readColumn(in, heapNumbers);
+            for(int i = 0; i < sampleCount; i++){
+                operationNumbers[i] = in.readLong();
+            }
+            readColumn(in, topIndices);
+            for(int i = 0; i < sampleCount; i++){
+                liveBytes[i] = in.readLong();
+            }
+            readColumn(in, largestFreeChunkSizes);
+            for(int[] binColumn : binFreeChunkCounts){
+                readColumn(in, binColumn);
+            }
+        }
+
+        private void readColumn(DataInputStream in, int[] column) throws IOException{
+            for(int i = 0; i < sampleCount; i++){
+                column[i] = in.readInt();
+            }
+        }
+
+        private void print(PrintWriter out){
+            for(int i = 0; i < sampleCount; i++){
+                out.print(heapNumbers[i]);
+                out.print(',');
+                out.print(operationNumbers[i]);
+                out.print(',');
+                out.print(topIndices[i]);
+                out.print(',');
+                out.print(liveBytes[i]);
+                out.print(',');
+                out.print(largestFreeChunkSizes[i]);
+                for(int[] binColumn : binFreeChunkCounts){
+                    out.print(',');
+                    out.print(binColumn[i]);
+                }
+                out.println();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.heapsimulation.telemetry;
+
+import com.heapsimulation.base.HeapMetricsSnapshot;
+import com.heapsimulation.base.HeapUtility;
+import com.heapsimulation.base.MemoryHeap;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Record heap state once every interval operations into a telemetry file: top index, live bytes, largest free chunk
+ * and free chunk count of every bin. Samples are kept by columns in memory and written as one block when the block
+ * is full, so a sample costs a few array stores and one walk of the bins, and writing is batched.
+ */
+public class TelemetrySampler implements Closeable {
+    private final DataOutputStream out;
+    private final int interval;
+    private final int blockSamples;
+    private final int[] heapNumbers;
+    private final long[] operationNumbers;
+    private final int[] topIndices;
+    private final long[] liveBytes;
+    private final int[] largestFreeChunkSizes;
+    //free chunk counts by bin, then by sample
+    private final int[][] binFreeChunkCounts = new int[HeapUtility.SMALL_BINS_COUNT][];
+    private final int[] freeChunkCounts = new int[HeapUtility.SMALL_BINS_COUNT];
+    private int sampleCount = 0;
+    private MemoryHeap heap = null;
+    private int heapNumber = 0;
+    private long operationCount = 0;
+
+    /**
+     * Create the telemetry file.
+     * @param filePath
+     * @param interval count of operations between samples
+     * @throws IOException
+     */
+    public TelemetrySampler(String filePath, int interval) throws IOException{
+        this(new FileOutputStream(filePath), interval, TelemetryFormat.DEFAULT_BLOCK_SAMPLES);
+    }
+
+    /**
+     * @param out stream to write telemetry file to, it is closed by close
+     * @param interval count of operations between samples
+     * @param blockSamples count of samples in a block
+     * @throws IOException
+     */
+    public TelemetrySampler(OutputStream out, int interval, int blockSamples) throws IOException{
+        if(interval <= 0 || blockSamples <= 0){
+            throw new IllegalArgumentException("Sampling interval and block samples must be positive");
+        }
+
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.interval = interval;
+        this.blockSamples = blockSamples;
+        heapNumbers = new int[blockSamples];
+        operationNumbers = new long[blockSamples];
+        topIndices = new int[blockSamples];
+        liveBytes = new long[blockSamples];
+        largestFreeChunkSizes = new int[blockSamples];
+        for(int i = 0; i < binFreeChunkCounts.length; i++){
+            binFreeChunkCounts[i] = new int[blockSamples];
+        }
+
+        this.out.writeInt(TelemetryFormat.MAGIC);
+        this.out.writeByte(TelemetryFormat.VERSION);
+        this.out.writeByte(HeapUtility.SMALL_BINS_COUNT);
+    }
+
+    /**
+     * Sample the heap from now on, samples of different heaps have different heap numbers starting from 1.
+     * @param heap
+     */
+    public void startHeap(MemoryHeap heap){
+        this.heap = heap;
+        heapNumber++;
+        operationCount = 0;
+    }
+
+    /**
+     * Called after every malloc and free of the heap.
+     */
+    public void operationFinished(){
+        operationCount++;
+        if(operationCount % interval == 0){
+            sample();
+        }
+    }
+
+    private void sample(){
+        HeapMetricsSnapshot metrics = heap.getMetricsSnapshot();
+        heap.getBinFreeChunkCounts(freeChunkCounts);
+        heapNumbers[sampleCount] = heapNumber;
+        operationNumbers[sampleCount] = operationCount;
+        topIndices[sampleCount] = heap.getTopIndex();
+        liveBytes[sampleCount] = metrics.getLiveBytes();
+        largestFreeChunkSizes[sampleCount] = metrics.getLargestFreeChunkSize();
+        for(int i = 0; i < freeChunkCounts.length; i++){
+            binFreeChunkCounts[i][sampleCount] = freeChunkCounts[i];
+        }
+
+        sampleCount++;
+        if(sampleCount == blockSamples){
+            try{
+                writeBlock();
+            }
+            catch(IOException exception){
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    private void writeBlock() throws IOException{
+        out.writeInt(sampleCount);
+        writeColumn(heapNumbers);
+        for(int i = 0; i < sampleCount; i++){
+            out.writeLong(operationNumbers[i]);
+        }
+        writeColumn(topIndices);
+        for(int i = 0; i < sampleCount; i++){
+            out.writeLong(liveBytes[i]);
+        }
+        writeColumn(largestFreeChunkSizes);
+        for(int[] binColumn : binFreeChunkCounts){
+            writeColumn(binColumn);
+        }
+
+        //complete blocks are readable while sampling goes on
+        out.flush();
+        sampleCount = 0;
+    }
+
+    private void writeColumn(int[] column) throws IOException{
+        for(int i = 0; i < sampleCount; i++){
+            out.writeInt(column[i]);
+        }
+    }
+
+    /**
+     * Write remaining samples and close the file.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException{
+        try{
+            if(sampleCount > 0){
+                writeBlock();
+            }
+        }
+        finally{
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.heapsimulation.trace;
+
+/**
+ * Binary trace file layout. Compatible with BinaryTraceWriter and BinaryTraceReplayer.
+ * Header: magic(Integer bytes, big endian) + version(one byte) + flags(one byte)
+ * Operation: opcode(one byte) + argument: bin manager ordinal(one byte) for setBinManager,
+ * zigzag varint size(1 to 5 bytes) for malloc and free, nothing for invalid commands
+ * Uncompressed body: operations until end of file
+ * Compressed body: blocks until end of file, each block is raw length(Integer bytes) + compressed length(Integer bytes) +
+ * deflated operations. Operations never cross block boundaries.
+ */
+public final class BinaryTraceFormat {
+    public final static int MAGIC = 0x48534254;  //HSBT
+    public final static byte VERSION = 1;
+    public final static int HEADER_SIZE = Integer.BYTES + 2;
+    public final static byte FLAG_COMPRESSED = 1;
+    public final static int BLOCK_HEADER_SIZE = Integer.BYTES * 2;
+    public final static int MAX_BLOCK_SIZE = 1 << 24;    //bound of raw and compressed lengths read from files
+    public final static int MAX_OPERATION_SIZE = 1 + 5;    //opcode + biggest varint
+
+    public final static byte OP_SET_BIN_MANAGER = 1;
+    public final static byte OP_MALLOC = 2;
+    public final static byte OP_FREE = 3;
+    public final static byte OP_INVALID_BIN_MANAGER = 4;
+    public final static byte OP_INVALID_ALLOCATION_SIZE = 5;
+    public final static byte OP_INVALID_DEALLOCATION_SIZE = 6;
+    public final static byte OP_INVALID_COMMAND = 7;
+
+    public static int encodeZigZag(int value){
+        return (value << 1) ^ (value >> 31);
+    }
+
+    public static int decodeZigZag(int value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,198 @@
+package com.heapsimulation.trace;
+
+import com.heapsimulation.binmanaging.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Replay binary trace files by memory mapping them and decoding operations directly from the mapped buffer.
+ * Files bigger than one mapping window are mapped window by window.
+ */
+public class BinaryTraceReplayer {
+    private final static long MAX_WINDOW_SIZE = 1L << 30;
+    private final static BinManagerType[] BIN_MANAGER_TYPES = BinManagerType.values();
+
+    /**
+     * Pass all operations of binary trace file to handler.
+     * @param filePath
+     * @param handler
+     * @throws IOException
+     */
+    public void replay(String filePath, ITraceCommandHandler handler) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)){
+            long fileSize = channel.size();
+            if(fileSize < BinaryTraceFormat.HEADER_SIZE){
+                throw new IOException("Binary trace file is too short");
+            }
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryTraceFormat.HEADER_SIZE);
+            if(header.getInt() != BinaryTraceFormat.MAGIC){
+                throw new IOException("File is not a binary trace");
+            }
+            if(header.get() != BinaryTraceFormat.VERSION){
+                throw new IOException("Unsupported binary trace version");
+            }
+            boolean compressed = (header.get() & BinaryTraceFormat.FLAG_COMPRESSED) != 0;
+
+            if(compressed){
+                replayBlocks(channel, fileSize, handler);
+            }
+            else{
+                replayOperations(channel, fileSize, handler);
+            }
+        }
+    }
+
+    private void replayOperations(FileChannel channel, long fileSize, ITraceCommandHandler handler) throws IOException {
+        long windowStart = BinaryTraceFormat.HEADER_SIZE;
+        while(windowStart < fileSize){
+            long windowSize = Math.min(MAX_WINDOW_SIZE, fileSize - windowStart);
+            boolean lastWindow = windowStart + windowSize == fileSize;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+            //leave possibly incomplete last operation of window for next window
+            int decodeLimit = lastWindow ? window.limit() : window.limit() - BinaryTraceFormat.MAX_OPERATION_SIZE;
+            decodeOperations(window, decodeLimit, handler);
+            windowStart += window.position();
+        }
+    }
+
+    private void replayBlocks(FileChannel channel, long fileSize, ITraceCommandHandler handler) throws IOException {
+        Inflater inflater = new Inflater();
+        byte[] rawBlock = new byte[0];
+        byte[] compressedBlock = new byte[0];
+        try{
+            long windowStart = BinaryTraceFormat.HEADER_SIZE;
+            while(windowStart < fileSize){
+                long windowSize = Math.min(MAX_WINDOW_SIZE, fileSize - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+                if(window.remaining() < BinaryTraceFormat.BLOCK_HEADER_SIZE){
+                    throw new IOException("Binary trace block is truncated");
+                }
+
+                //process all complete blocks of window
+                while(window.remaining() >= BinaryTraceFormat.BLOCK_HEADER_SIZE){
+                    int blockStart = window.position();
+                    int rawLength = window.getInt();
+                    int compressedLength = window.getInt();
+                    if(rawLength <= 0 || rawLength > BinaryTraceFormat.MAX_BLOCK_SIZE
+                            || compressedLength <= 0 || compressedLength > BinaryTraceFormat.MAX_BLOCK_SIZE){
+                        throw new IOException("Binary trace block is corrupted");
+                    }
+                    if(windowStart + window.position() + compressedLength > fileSize){
+                        throw new IOException("Binary trace block is truncated");
+                    }
+                    if(window.remaining() < compressedLength){
+                        if(blockStart == 0){
+                            throw new IOException("Binary trace block is truncated");
+                        }
+                        window.position(blockStart);
+                        break;
+                    }
+
+                    if(compressedBlock.length < compressedLength){
+                        compressedBlock = new byte[compressedLength];
+                    }
+                    if(rawBlock.length < rawLength){
+                        rawBlock = new byte[rawLength];
+                    }
+                    window.get(compressedBlock, 0, compressedLength);
+
+                    inflater.reset();
+                    inflater.setInput(compressedBlock, 0, compressedLength);
+                    int inflatedLength = 0;
+                    while(inflatedLength < rawLength && !inflater.finished()){
+                        int count = inflater.inflate(rawBlock, inflatedLength, rawLength - inflatedLength);
+                        if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())){
+                            //compressed data ended before raw length, it would never make progress
+                            throw new IOException("Binary trace block is corrupted");
+                        }
+                        inflatedLength += count;
+                    }
+                    if(inflatedLength != rawLength){
+                        throw new IOException("Binary trace block is corrupted");
+                    }
+
+                    decodeOperations(ByteBuffer.wrap(rawBlock, 0, rawLength), rawLength, handler);
+                }
+                windowStart += window.position();
+            }
+        }
+        catch(DataFormatException exception){
+            throw new IOException("Binary trace block is corrupted", exception);
+        }
+        finally{
+            inflater.end();
+        }
+    }
+
+    /**
+     * Decode and dispatch operations starting before decode limit.
+     * @param buffer buffer positioned at first operation, it is positioned after last decoded operation on return
+     * @param decodeLimit
+     * @param handler
+     * @throws IOException
+     */
+    private void decodeOperations(ByteBuffer buffer, int decodeLimit, ITraceCommandHandler handler) throws IOException {
+        int limit = buffer.limit();
+        while(buffer.position() < decodeLimit){
+            byte opcode = buffer.get();
+            switch(opcode){
+                case BinaryTraceFormat.OP_MALLOC:
+                    handler.onMalloc(readSize(buffer, limit));
+                    break;
+                case BinaryTraceFormat.OP_FREE:
+                    handler.onFree(readSize(buffer, limit));
+                    break;
+                case BinaryTraceFormat.OP_SET_BIN_MANAGER:
+                    if(buffer.position() == limit){
+                        throw new IOException("Binary trace operation is truncated");
+                    }
+                    int ordinal = buffer.get();
+                    if(ordinal < 0 || ordinal >= BIN_MANAGER_TYPES.length){
+                        throw new IOException("Unknown bin manager in binary trace");
+                    }
+                    handler.onSetBinManager(BIN_MANAGER_TYPES[ordinal]);
+                    break;
+                case BinaryTraceFormat.OP_INVALID_BIN_MANAGER:
+                    handler.onInvalidBinManager();
+                    break;
+                case BinaryTraceFormat.OP_INVALID_ALLOCATION_SIZE:
+                    handler.onInvalidAllocationSize();
+                    break;
+                case BinaryTraceFormat.OP_INVALID_DEALLOCATION_SIZE:
+                    handler.onInvalidDeAllocationSize();
+                    break;
+                case BinaryTraceFormat.OP_INVALID_COMMAND:
+                    handler.onInvalidCommand();
+                    break;
+                default:
+                    throw new IOException("Unknown opcode in binary trace: " + opcode);
+            }
+        }
+    }
+
+    private int readSize(ByteBuffer buffer, int limit) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do{
+            if(buffer.position() == limit || shift > 28){
+                throw new IOException("Binary trace size is truncated");
+            }
+            current = buffer.get();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        }
+        while((current & 0x80) != 0);
+
+        return BinaryTraceFormat.decodeZigZag(value);
+    }
+}
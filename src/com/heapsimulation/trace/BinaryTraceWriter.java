@@ -0,0 +1,164 @@
+package com.heapsimulation.trace;
+
+import com.heapsimulation.binmanaging.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Write trace commands in binary trace format. Can be passed to StreamingTraceParser to convert text traces.
+ */
+public class BinaryTraceWriter implements ITraceCommandHandler, Closeable {
+    private final static int BLOCK_SIZE = 1 << 20;
+
+    private final OutputStream output;
+    private final boolean compressed;
+    private final byte[] block;
+    private int blockLength = 0;
+    private Deflater deflater;
+    private byte[] compressedBlock;
+
+    public BinaryTraceWriter(OutputStream output, boolean compressed) throws IOException {
+        this.output = output;
+        this.compressed = compressed;
+        block = new byte[BLOCK_SIZE];
+        if(compressed){
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            compressedBlock = new byte[BLOCK_SIZE + BLOCK_SIZE / 2];
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(BinaryTraceFormat.HEADER_SIZE);
+        header.putInt(BinaryTraceFormat.MAGIC);
+        header.put(BinaryTraceFormat.VERSION);
+        header.put(compressed ? BinaryTraceFormat.FLAG_COMPRESSED : 0);
+        output.write(header.array());
+    }
+
+    /**
+     * Convert text trace file to binary trace file.
+     * @param textFilePath
+     * @param binaryFilePath
+     * @param compressed compress operations by blocks
+     * @throws IOException
+     */
+    public static void convertTextTrace(String textFilePath, String binaryFilePath, boolean compressed) throws IOException {
+        try(BinaryTraceWriter writer = new BinaryTraceWriter(new FileOutputStream(binaryFilePath), compressed)){
+            new StreamingTraceParser().parse(textFilePath, writer);
+        }
+        catch(UncheckedIOException exception){
+            throw exception.getCause();
+        }
+    }
+
+    @Override
+    public void onSetBinManager(BinManagerType binManagerType) {
+        ensureOperationSpace();
+        block[blockLength++] = BinaryTraceFormat.OP_SET_BIN_MANAGER;
+        block[blockLength++] = (byte)binManagerType.ordinal();
+    }
+
+    @Override
+    public void onMalloc(int size) {
+        writeSizeOperation(BinaryTraceFormat.OP_MALLOC, size);
+    }
+
+    @Override
+    public void onFree(int size) {
+        writeSizeOperation(BinaryTraceFormat.OP_FREE, size);
+    }
+
+    @Override
+    public void onInvalidBinManager() {
+        writeOperation(BinaryTraceFormat.OP_INVALID_BIN_MANAGER);
+    }
+
+    @Override
+    public void onInvalidAllocationSize() {
+        writeOperation(BinaryTraceFormat.OP_INVALID_ALLOCATION_SIZE);
+    }
+
+    @Override
+    public void onInvalidDeAllocationSize() {
+        writeOperation(BinaryTraceFormat.OP_INVALID_DEALLOCATION_SIZE);
+    }
+
+    @Override
+    public void onInvalidCommand() {
+        writeOperation(BinaryTraceFormat.OP_INVALID_COMMAND);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try{
+            flushBlock();
+        }
+        catch(UncheckedIOException exception){
+            throw exception.getCause();
+        }
+        finally{
+            if(deflater != null){
+                deflater.end();
+            }
+            output.close();
+        }
+    }
+
+    private void writeOperation(byte opcode){
+        ensureOperationSpace();
+        block[blockLength++] = opcode;
+    }
+
+    private void writeSizeOperation(byte opcode, int size){
+        ensureOperationSpace();
+        block[blockLength++] = opcode;
+        int value = BinaryTraceFormat.encodeZigZag(size);
+        while((value & ~0x7F) != 0){
+            block[blockLength++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        block[blockLength++] = (byte)value;
+    }
+
+    private void ensureOperationSpace(){
+        if(blockLength + BinaryTraceFormat.MAX_OPERATION_SIZE > block.length){
+            flushBlock();
+        }
+    }
+
+    private void flushBlock(){
+        if(blockLength == 0){
+            return;
+        }
+
+        try{
+            if(compressed){
+                deflater.reset();
+                deflater.setInput(block, 0, blockLength);
+                deflater.finish();
+                int compressedLength = 0;
+                while(!deflater.finished()){
+                    if(compressedLength == compressedBlock.length){
+                        compressedBlock = Arrays.copyOf(compressedBlock, compressedBlock.length * 2);
+                    }
+                    compressedLength += deflater.deflate(compressedBlock, compressedLength, compressedBlock.length - compressedLength);
+                }
+
+                ByteBuffer blockHeader = ByteBuffer.allocate(BinaryTraceFormat.BLOCK_HEADER_SIZE);
+                blockHeader.putInt(blockLength);
+                blockHeader.putInt(compressedLength);
+                output.write(blockHeader.array());
+                output.write(compressedBlock, 0, compressedLength);
+            }
+            else{
+                output.write(block, 0, blockLength);
+            }
+        }
+        catch(IOException exception){
+            throw new UncheckedIOException(exception);
+        }
+
+        blockLength = 0;
+    }
+}
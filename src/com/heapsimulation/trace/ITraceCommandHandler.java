@@ -0,0 +1,55 @@
+package com.heapsimulation.trace;
+
+import com.heapsimulation.binmanaging.*;
+
+/**
+ * Receive commands of a trace in order. Invalid commands are reported too, so handlers can keep the same output as
+ * processing the trace line by line.
+ */
+public interface ITraceCommandHandler {
+    void onSetBinManager(BinManagerType binManagerType);
+    void onMalloc(int size);
+    void onFree(int size);
+
+    /**
+     * setBinManager command with unknown bin manager name.
+     */
+    void onInvalidBinManager();
+
+    /**
+     * malloc command with an argument which is not a number.
+     */
+    void onInvalidAllocationSize();
+
+    /**
+     * free command with an argument which is not a number.
+     */
+    void onInvalidDeAllocationSize();
+
+    /**
+     * Unknown command or command without argument.
+     */
+    void onInvalidCommand();
+
+    /**
+     * malloc command of a generated workload, whose chunk is freed later by onFreeAllocation with the same id.
+     * Handlers which run commands on a heap keep the allocated chunk, other handlers treat it as onMalloc.
+     * @param allocationId id of the allocation, ids are reused after their allocation is freed
+     * @param size
+     * @return Return false if the allocation failed and must not be freed, return true if it succeeded or is unknown.
+     */
+    default boolean onMallocAllocation(int allocationId, int size){
+        onMalloc(size);
+        return true;
+    }
+
+    /**
+     * free command of a generated workload, which frees the chunk of onMallocAllocation with the same id. Handlers
+     * which do not keep allocated chunks free by size.
+     * @param allocationId
+     * @param size size of the allocation
+     */
+    default void onFreeAllocation(int allocationId, int size){
+        onFree(size);
+    }
+}
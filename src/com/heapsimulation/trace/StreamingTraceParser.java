@@ -0,0 +1,235 @@
+package com.heapsimulation.trace;
+
+import com.heapsimulation.binmanaging.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Parse text trace files by reading large byte buffers and tokenizing commands in place, without creating objects
+ * per line. Lines are split like String.split(" ") on the line read by BufferedReader.readLine, so results are the same
+ * as processing the file line by line.
+ */
+public class StreamingTraceParser {
+    private final static int DEFAULT_BUFFER_SIZE = 1 << 20;
+    private final static byte SPACE = ' ';
+    private final static byte LINE_FEED = '\n';
+    private final static byte CARRIAGE_RETURN = '\r';
+    private final static byte[] SET_BIN_MANAGER_KEYWORD = getAsciiBytes("setBinManager");
+    private final static byte[] MALLOC_KEYWORD = getAsciiBytes("malloc");
+    private final static byte[] FREE_KEYWORD = getAsciiBytes("free");
+    private final static BinManagerType[] BIN_MANAGER_TYPES = BinManagerType.values();
+    private final static byte[][] BIN_MANAGER_NAMES = getBinManagerNames();
+
+    private final static int NO_INDEX = -1;
+
+    private byte[] buffer;
+    //result of parseSize, valid if it returned true
+    private int parsedSize;
+
+    public StreamingTraceParser(){
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public StreamingTraceParser(int bufferSize){
+        if(bufferSize <= 0){
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+
+        buffer = new byte[bufferSize];
+    }
+
+    public void parse(String filePath, ITraceCommandHandler handler) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)){
+            parse(channel, handler);
+        }
+    }
+
+    /**
+     * Read all commands of channel and pass them to handler.
+     * @param channel
+     * @param handler
+     * @throws IOException
+     */
+    public void parse(ReadableByteChannel channel, ITraceCommandHandler handler) throws IOException {
+        int length = 0;   //count of valid bytes in buffer
+        boolean endOfStream = false;
+        while(!endOfStream){
+            if(length == buffer.length){
+                //line is longer than buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            int readCount = channel.read(ByteBuffer.wrap(buffer, length, buffer.length - length));
+            if(readCount < 0){
+                endOfStream = true;
+            }
+            else{
+                length += readCount;
+            }
+
+            //process complete lines
+            int lineStart = 0;
+            for(int i = 0; i < length; i++){
+                byte value = buffer[i];
+                if(value == LINE_FEED || value == CARRIAGE_RETURN){
+                    processLine(lineStart, i, handler);
+                    lineStart = i + 1;
+                }
+            }
+
+            if(endOfStream){
+                processLine(lineStart, length, handler);
+            }
+            else{
+                //keep incomplete line for next read
+                length -= lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, length);
+            }
+        }
+    }
+
+    private void processLine(int start, int end, ITraceCommandHandler handler){
+        //trailing empty tokens are removed by split
+        while(end > start && buffer[end - 1] == SPACE){
+            end--;
+        }
+        if(end == start){
+            return;
+        }
+
+        int firstSpace = indexOf(SPACE, start, end);
+        if(firstSpace == NO_INDEX){
+            //single token
+            handler.onInvalidCommand();
+            return;
+        }
+
+        int argStart = firstSpace + 1;
+        int argEnd = indexOf(SPACE, argStart, end);
+        if(argEnd == NO_INDEX){
+            argEnd = end;
+        }
+
+        if(equalsBytes(SET_BIN_MANAGER_KEYWORD, start, firstSpace)){
+            BinManagerType type = findBinManagerType(argStart, argEnd);
+            if(type != null){
+                handler.onSetBinManager(type);
+            }
+            else{
+                handler.onInvalidBinManager();
+            }
+        }
+        else if(equalsBytes(MALLOC_KEYWORD, start, firstSpace)){
+            if(parseSize(argStart, argEnd)){
+                handler.onMalloc(parsedSize);
+            }
+            else{
+                handler.onInvalidAllocationSize();
+            }
+        }
+        else if(equalsBytes(FREE_KEYWORD, start, firstSpace)){
+            if(parseSize(argStart, argEnd)){
+                handler.onFree(parsedSize);
+            }
+            else{
+                handler.onInvalidDeAllocationSize();
+            }
+        }
+        else{
+            handler.onInvalidCommand();
+        }
+    }
+
+    private BinManagerType findBinManagerType(int start, int end){
+        for(int i = 0; i < BIN_MANAGER_NAMES.length; i++){
+            if(equalsBytes(BIN_MANAGER_NAMES[i], start, end)){
+                return BIN_MANAGER_TYPES[i];
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Parse decimal number like Integer.parseInt and keep it in parsedSize.
+     * @return Return true if bytes are a valid int, return false otherwise.
+     */
+    private boolean parseSize(int start, int end){
+        if(start == end){
+            return false;
+        }
+
+        boolean negative = false;
+        int index = start;
+        if(buffer[index] == '-' || buffer[index] == '+'){
+            negative = buffer[index] == '-';
+            index++;
+            if(index == end){
+                return false;
+            }
+        }
+
+        //accumulate negatively to support Integer.MIN_VALUE
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int result = 0;
+        while(index < end){
+            int digit = buffer[index] - '0';
+            if(digit < 0 || digit > 9 || result < limit / 10){
+                return false;
+            }
+            result *= 10;
+            if(result < limit + digit){
+                return false;
+            }
+            result -= digit;
+            index++;
+        }
+
+        parsedSize = negative ? result : -result;
+        return true;
+    }
+
+    private int indexOf(byte value, int start, int end){
+        for(int i = start; i < end; i++){
+            if(buffer[i] == value){
+                return i;
+            }
+        }
+
+        return NO_INDEX;
+    }
+
+    private boolean equalsBytes(byte[] expected, int start, int end){
+        if(end - start != expected.length){
+            return false;
+        }
+
+        for(int i = 0; i < expected.length; i++){
+            if(buffer[start + i] != expected[i]){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static byte[] getAsciiBytes(String text){
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] getBinManagerNames(){
+        byte[][] names = new byte[BIN_MANAGER_TYPES.length][];
+        for(int i = 0; i < names.length; i++){
+            names[i] = getAsciiBytes(BIN_MANAGER_TYPES[i].getName());
+        }
+
+        return names;
+    }
+}
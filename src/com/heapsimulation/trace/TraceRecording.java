@@ -0,0 +1,123 @@
+package com.heapsimulation.trace;
+
+import com.heapsimulation.binmanaging.*;
+
+import java.util.Arrays;
+
+/**
+ * Keep heap operations of a trace in memory, so one parsed trace can be replayed many times.
+ * Invalid commands are not kept because they do not change heaps.
+ */
+public class TraceRecording implements ITraceCommandHandler {
+    //operations of generated workload allocations, which are only kept by recordings and not by binary trace files
+    public final static byte OP_MALLOC_ALLOCATION = 101;
+    public final static byte OP_FREE_ALLOCATION = 102;
+    private final static int INITIAL_CAPACITY = 1 << 10;
+
+    private byte[] opcodes;
+    private int[] arguments;
+    private int[] allocationIds;
+    private int operationCount = 0;
+
+    public TraceRecording(){
+        opcodes = new byte[INITIAL_CAPACITY];
+        arguments = new int[INITIAL_CAPACITY];
+        allocationIds = new int[INITIAL_CAPACITY];
+    }
+
+    public int getOperationCount(){
+        return operationCount;
+    }
+
+    /**
+     * Get opcode of operation, one of OP_SET_BIN_MANAGER, OP_MALLOC and OP_FREE from BinaryTraceFormat, or
+     * OP_MALLOC_ALLOCATION and OP_FREE_ALLOCATION.
+     * @param index
+     * @return
+     */
+    public byte getOpcode(int index){
+        return opcodes[index];
+    }
+
+    /**
+     * Get size of malloc and free operations, or bin manager ordinal of setBinManager operations.
+     * @param index
+     * @return
+     */
+    public int getArgument(int index){
+        return arguments[index];
+    }
+
+    /**
+     * Get allocation id of OP_MALLOC_ALLOCATION and OP_FREE_ALLOCATION operations.
+     * @param index
+     * @return
+     */
+    public int getAllocationId(int index){
+        return allocationIds[index];
+    }
+
+    @Override
+    public void onSetBinManager(BinManagerType binManagerType) {
+        add(BinaryTraceFormat.OP_SET_BIN_MANAGER, binManagerType.ordinal());
+    }
+
+    @Override
+    public void onMalloc(int size) {
+        add(BinaryTraceFormat.OP_MALLOC, size);
+    }
+
+    @Override
+    public void onFree(int size) {
+        add(BinaryTraceFormat.OP_FREE, size);
+    }
+
+    @Override
+    public boolean onMallocAllocation(int allocationId, int size) {
+        add(OP_MALLOC_ALLOCATION, size, allocationId);
+        //result is only known when replayed, replays skip frees of failed allocations
+        return true;
+    }
+
+    @Override
+    public void onFreeAllocation(int allocationId, int size) {
+        add(OP_FREE_ALLOCATION, size, allocationId);
+    }
+
+    @Override
+    public void onInvalidBinManager() {
+
+    }
+
+    @Override
+    public void onInvalidAllocationSize() {
+
+    }
+
+    @Override
+    public void onInvalidDeAllocationSize() {
+
+    }
+
+    @Override
+    public void onInvalidCommand() {
+
+    }
+
+    private void add(byte opcode, int argument){
+        add(opcode, argument, 0);
+    }
+
+    private void add(byte opcode, int argument, int allocationId){
+        if(operationCount == opcodes.length){
+            opcodes = Arrays.copyOf(opcodes, opcodes.length * 2);
+            arguments = Arrays.copyOf(arguments, arguments.length * 2);
+            allocationIds = Arrays.copyOf(allocationIds, allocationIds.length * 2);
+        }
+
+        opcodes[operationCount] = opcode;
+        arguments[operationCount] = argument;
+        allocationIds[operationCount] = allocationId;
+        operationCount++;
+    }
+}
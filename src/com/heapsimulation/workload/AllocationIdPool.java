@@ -0,0 +1,41 @@
+package com.heapsimulation.workload;
+
+import java.util.Arrays;
+
+/**
+ * Ids of live allocations, freed ids are reused first so ids stay below the highest live allocations count.
+ */
+class AllocationIdPool {
+    private final static int INITIAL_CAPACITY = 1 << 10;
+
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+    private int freeIdCount = 0;
+    private int nextId = 0;
+
+    int acquire(){
+        if(freeIdCount > 0){
+            freeIdCount--;
+            return freeIds[freeIdCount];
+        }
+
+        int id = nextId;
+        nextId++;
+        return id;
+    }
+
+    void release(int id){
+        if(freeIdCount == freeIds.length){
+            freeIds = Arrays.copyOf(freeIds, freeIdCount * 2);
+        }
+        freeIds[freeIdCount] = id;
+        freeIdCount++;
+    }
+
+    /**
+     * Get count of ids which have ever been acquired, every id is less than it.
+     * @return
+     */
+    int getIdCount(){
+        return nextId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.heapsimulation.workload;
+
+import java.util.Random;
+
+/**
+ * Lifetimes are exponentially distributed, most allocations die young and a few live long.
+ */
+public class ExponentialLifetimeModel implements ILifetimeModel {
+    private final double meanLifetime;
+
+    public ExponentialLifetimeModel(double meanLifetime){
+        if(meanLifetime <= 0){
+            throw new IllegalArgumentException("Mean lifetime must be positive");
+        }
+
+        this.meanLifetime = meanLifetime;
+    }
+
+    @Override
+    public long nextLifetime(Random random) {
+        double lifetime = -meanLifetime * Math.log(1 - random.nextDouble());
+        return Math.max(1, Math.round(lifetime));
+    }
+}
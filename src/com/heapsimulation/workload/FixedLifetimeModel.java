@@ -0,0 +1,23 @@
+package com.heapsimulation.workload;
+
+import java.util.Random;
+
+/**
+ * Every allocation lives for the same count of allocations.
+ */
+public class FixedLifetimeModel implements ILifetimeModel {
+    private final long lifetime;
+
+    public FixedLifetimeModel(long lifetime){
+        if(lifetime <= 0){
+            throw new IllegalArgumentException("Lifetime must be positive");
+        }
+
+        this.lifetime = lifetime;
+    }
+
+    @Override
+    public long nextLifetime(Random random) {
+        return lifetime;
+    }
+}
@@ -0,0 +1,46 @@
+package com.heapsimulation.workload;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Sizes of an empirical histogram, each size is chosen with probability proportional to its weight.
+ */
+public class HistogramSizeDistribution implements ISizeDistribution {
+    private final int[] sizes;
+    private final double[] cumulativeWeights;
+
+    public HistogramSizeDistribution(int[] sizes, double[] weights){
+        if(sizes.length == 0 || sizes.length != weights.length){
+            throw new IllegalArgumentException("Histogram must have one weight for every size");
+        }
+
+        this.sizes = Arrays.copyOf(sizes, sizes.length);
+        cumulativeWeights = new double[weights.length];
+        double sum = 0;
+        for(int i = 0; i < weights.length; i++){
+            if(sizes[i] <= 0 || weights[i] < 0){
+                throw new IllegalArgumentException("Histogram sizes must be positive and weights can not be negative");
+            }
+            sum += weights[i];
+            cumulativeWeights[i] = sum;
+        }
+        if(sum <= 0){
+            throw new IllegalArgumentException("Histogram weights sum must be positive");
+        }
+    }
+
+    @Override
+    public int nextSize(Random random) {
+        double total = cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * total);
+        if(index < 0){
+            index = -index - 1;   //insertion point
+        }
+        else{
+            index++;    //weight is exclusive upper bound of its size
+        }
+
+        return sizes[Math.min(index, sizes.length - 1)];
+    }
+}
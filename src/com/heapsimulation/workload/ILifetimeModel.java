@@ -0,0 +1,13 @@
+package com.heapsimulation.workload;
+
+import java.util.Random;
+
+public interface ILifetimeModel {
+
+    /**
+     * Choose lifetime of next allocation, as count of allocations after it before it is freed.
+     * @param random
+     * @return
+     */
+    long nextLifetime(Random random);
+}
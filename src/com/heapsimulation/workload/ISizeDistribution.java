@@ -0,0 +1,13 @@
+package com.heapsimulation.workload;
+
+import java.util.Random;
+
+public interface ISizeDistribution {
+
+    /**
+     * Choose size of next allocation.
+     * @param random
+     * @return
+     */
+    int nextSize(Random random);
+}
@@ -0,0 +1,94 @@
+package com.heapsimulation.workload;
+
+import java.util.Arrays;
+
+/**
+ * Min heap of live allocations ordered by death time, kept in primitive arrays.
+ * Allocations dying at the same time are ordered by birth time, so the order of frees does not depend on which
+ * allocations have failed.
+ */
+class LiveAllocationQueue {
+    private final static int INITIAL_CAPACITY = 1 << 10;
+
+    private long[] deathTimes;
+    private long[] birthTimes;
+    private int[] allocationIds;
+    private int size = 0;
+
+    LiveAllocationQueue(){
+        deathTimes = new long[INITIAL_CAPACITY];
+        birthTimes = new long[INITIAL_CAPACITY];
+        allocationIds = new int[INITIAL_CAPACITY];
+    }
+
+    boolean isEmpty(){
+        return size == 0;
+    }
+
+    long peekDeathTime(){
+        return deathTimes[0];
+    }
+
+    void add(long deathTime, long birthTime, int allocationId){
+        if(size == deathTimes.length){
+            deathTimes = Arrays.copyOf(deathTimes, size * 2);
+            birthTimes = Arrays.copyOf(birthTimes, size * 2);
+            allocationIds = Arrays.copyOf(allocationIds, size * 2);
+        }
+
+        //sift up
+        int index = size;
+        size++;
+        while(index > 0){
+            int parent = (index - 1) / 2;
+            if(!isBefore(deathTime, birthTime, parent)){
+                break;
+            }
+            deathTimes[index] = deathTimes[parent];
+            birthTimes[index] = birthTimes[parent];
+            allocationIds[index] = allocationIds[parent];
+            index = parent;
+        }
+        deathTimes[index] = deathTime;
+        birthTimes[index] = birthTime;
+        allocationIds[index] = allocationId;
+    }
+
+    /**
+     * Remove the allocation which dies first.
+     * @return Return id of the removed allocation.
+     */
+    int poll(){
+        int polledId = allocationIds[0];
+        size--;
+        long deathTime = deathTimes[size];
+        long birthTime = birthTimes[size];
+        int allocationId = allocationIds[size];
+
+        //sift down last allocation from root
+        int index = 0;
+        int half = size / 2;
+        while(index < half){
+            int child = 2 * index + 1;
+            if(child + 1 < size && isBefore(deathTimes[child + 1], birthTimes[child + 1], child)){
+                child++;
+            }
+            if(isBefore(deathTime, birthTime, child)){
+                break;
+            }
+            deathTimes[index] = deathTimes[child];
+            birthTimes[index] = birthTimes[child];
+            allocationIds[index] = allocationIds[child];
+            index = child;
+        }
+        deathTimes[index] = deathTime;
+        birthTimes[index] = birthTime;
+        allocationIds[index] = allocationId;
+
+        return polledId;
+    }
+
+    private boolean isBefore(long deathTime, long birthTime, int index){
+        return deathTime < deathTimes[index] || (deathTime == deathTimes[index] && birthTime < birthTimes[index]);
+    }
+}
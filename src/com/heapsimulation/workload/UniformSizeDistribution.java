@@ -0,0 +1,25 @@
+package com.heapsimulation.workload;
+
+import java.util.Random;
+
+/**
+ * Sizes uniformly chosen between minimum and maximum size (inclusive).
+ */
+public class UniformSizeDistribution implements ISizeDistribution {
+    private final int minSize;
+    private final int maxSize;
+
+    public UniformSizeDistribution(int minSize, int maxSize){
+        if(minSize <= 0 || maxSize < minSize){
+            throw new IllegalArgumentException("Sizes must be positive and minimum size can not be more than maximum size");
+        }
+
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int nextSize(Random random) {
+        return minSize + random.nextInt(maxSize - minSize + 1);
+    }
+}
@@ -0,0 +1,86 @@
+package com.heapsimulation.workload;
+
+import com.heapsimulation.binmanaging.*;
+import com.heapsimulation.trace.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generate malloc and free commands of a synthetic workload and stream them to a trace command handler, so workloads
+ * can drive a heap directly or be exported by BinaryTraceWriter. Same seed and phases always generate the same mallocs.
+ * Time advances by one for every allocation, an allocation is freed when its lifetime has passed. Allocations are
+ * passed with ids, so handlers which drive a heap free exactly the chunk of the allocation and report failed mallocs,
+ * which are never freed. Exported traces keep only sizes, so their frees are by size.
+ */
+public class WorkloadGenerator {
+    private final long seed;
+    private final List<WorkloadPhase> phases;
+    private final BinManagerType binManagerType;
+    private final boolean freeAllAtEnd;
+
+    /**
+     * @param seed
+     * @param phases phases run one after another, live allocations of a phase may die in next phases
+     * @param binManagerType bin manager set before first command, or null to not set any bin manager
+     * @param freeAllAtEnd free allocations which are still live at the end
+     */
+    public WorkloadGenerator(long seed, List<WorkloadPhase> phases, BinManagerType binManagerType, boolean freeAllAtEnd){
+        this.seed = seed;
+        this.phases = new ArrayList<>(phases);
+        this.binManagerType = binManagerType;
+        this.freeAllAtEnd = freeAllAtEnd;
+    }
+
+    public void generate(ITraceCommandHandler handler){
+        Random random = new Random(seed);
+        LiveAllocationQueue liveAllocations = new LiveAllocationQueue();
+        AllocationIdPool allocationIds = new AllocationIdPool();
+        int[] allocationSizes = new int[0];
+        long time = 0;
+
+        if(binManagerType != null){
+            handler.onSetBinManager(binManagerType);
+        }
+
+        for(WorkloadPhase phase : phases){
+            ISizeDistribution sizeDistribution = phase.getSizeDistribution();
+            ILifetimeModel lifetimeModel = phase.getLifetimeModel();
+            for(long i = 0; i < phase.getAllocationCount(); i++){
+                time++;
+                while(!liveAllocations.isEmpty() && liveAllocations.peekDeathTime() <= time){
+                    freeAllocation(handler, liveAllocations.poll(), allocationSizes, allocationIds);
+                }
+
+                int size = sizeDistribution.nextSize(random);
+                //lifetime is drawn for failed allocations too, so commands do not depend on the heap
+                long deathTime = time + lifetimeModel.nextLifetime(random);
+                int allocationId = allocationIds.acquire();
+                if(allocationId >= allocationSizes.length){
+                    allocationSizes = Arrays.copyOf(allocationSizes, allocationIds.getIdCount() * 2);
+                }
+                if(handler.onMallocAllocation(allocationId, size)){
+                    allocationSizes[allocationId] = size;
+                    liveAllocations.add(deathTime, time, allocationId);
+                }
+                else{
+                    allocationIds.release(allocationId);
+                }
+            }
+        }
+
+        if(freeAllAtEnd){
+            while(!liveAllocations.isEmpty()){
+                freeAllocation(handler, liveAllocations.poll(), allocationSizes, allocationIds);
+            }
+        }
+    }
+
+    private void freeAllocation(ITraceCommandHandler handler, int allocationId, int[] allocationSizes,
+                                AllocationIdPool allocationIds){
+        handler.onFreeAllocation(allocationId, allocationSizes[allocationId]);
+        allocationIds.release(allocationId);
+    }
+}
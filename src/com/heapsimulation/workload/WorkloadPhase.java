@@ -0,0 +1,32 @@
+package com.heapsimulation.workload;
+
+/**
+ * Part of a workload with its own size distribution and lifetime model.
+ */
+public class WorkloadPhase {
+    private final long allocationCount;
+    private final ISizeDistribution sizeDistribution;
+    private final ILifetimeModel lifetimeModel;
+
+    public WorkloadPhase(long allocationCount, ISizeDistribution sizeDistribution, ILifetimeModel lifetimeModel){
+        if(allocationCount < 0){
+            throw new IllegalArgumentException("Allocation count can not be negative");
+        }
+
+        this.allocationCount = allocationCount;
+        this.sizeDistribution = sizeDistribution;
+        this.lifetimeModel = lifetimeModel;
+    }
+
+    public long getAllocationCount(){
+        return allocationCount;
+    }
+
+    public ISizeDistribution getSizeDistribution(){
+        return sizeDistribution;
+    }
+
+    public ILifetimeModel getLifetimeModel(){
+        return lifetimeModel;
+    }
+}
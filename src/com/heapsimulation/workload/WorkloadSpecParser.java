@@ -0,0 +1,112 @@
+package com.heapsimulation.workload;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parse workload phases from text.
+ * Phases: phase[/phase...]
+ * Phase: allocationCount,sizes,lifetime
+ * Sizes: uniform:MIN:MAX | zipf:MIN:MAX:EXPONENT | histogram:SIZE=WEIGHT[:SIZE=WEIGHT...]
+ * Lifetime: fixed:ALLOCATIONS | exp:MEAN_ALLOCATIONS
+ * Example: 1000000,zipf:8:512:1.2,exp:100/500000,uniform:64:256,fixed:20
+ */
+public final class WorkloadSpecParser {
+    private final static String PHASE_SEPARATOR = "/";
+    private final static String PART_SEPARATOR = ",";
+    private final static String ARGUMENT_SEPARATOR = ":";
+    private final static String WEIGHT_SEPARATOR = "=";
+
+    /**
+     * @param spec
+     * @return
+     * @throws IllegalArgumentException if spec is not valid
+     */
+    public static List<WorkloadPhase> parsePhases(String spec){
+        List<WorkloadPhase> phases = new ArrayList<>();
+        for(String phaseSpec : spec.split(PHASE_SEPARATOR)){
+            String[] parts = phaseSpec.split(PART_SEPARATOR);
+            if(parts.length != 3){
+                throw new IllegalArgumentException("Workload phase must be allocationCount,sizes,lifetime: " + phaseSpec);
+            }
+
+            long allocationCount = parseLong(parts[0]);
+            phases.add(new WorkloadPhase(allocationCount, parseSizeDistribution(parts[1]), parseLifetimeModel(parts[2])));
+        }
+
+        return phases;
+    }
+
+    private static ISizeDistribution parseSizeDistribution(String spec){
+        String[] args = spec.split(ARGUMENT_SEPARATOR);
+        switch(args[0]){
+            case "uniform":
+                checkArgumentCount(args, 3, spec);
+                return new UniformSizeDistribution(parseInt(args[1]), parseInt(args[2]));
+            case "zipf":
+                checkArgumentCount(args, 4, spec);
+                return new ZipfSizeDistribution(parseInt(args[1]), parseInt(args[2]), parseDouble(args[3]));
+            case "histogram":
+                if(args.length < 2){
+                    throw new IllegalArgumentException("Histogram needs at least one SIZE=WEIGHT: " + spec);
+                }
+                int[] sizes = new int[args.length - 1];
+                double[] weights = new double[args.length - 1];
+                for(int i = 1; i < args.length; i++){
+                    String[] sizeWeight = args[i].split(WEIGHT_SEPARATOR);
+                    checkArgumentCount(sizeWeight, 2, spec);
+                    sizes[i - 1] = parseInt(sizeWeight[0]);
+                    weights[i - 1] = parseDouble(sizeWeight[1]);
+                }
+                return new HistogramSizeDistribution(sizes, weights);
+            default:
+                throw new IllegalArgumentException("Unknown size distribution: " + spec);
+        }
+    }
+
+    private static ILifetimeModel parseLifetimeModel(String spec){
+        String[] args = spec.split(ARGUMENT_SEPARATOR);
+        checkArgumentCount(args, 2, spec);
+        switch(args[0]){
+            case "fixed":
+                return new FixedLifetimeModel(parseLong(args[1]));
+            case "exp":
+                return new ExponentialLifetimeModel(parseDouble(args[1]));
+            default:
+                throw new IllegalArgumentException("Unknown lifetime model: " + spec);
+        }
+    }
+
+    private static void checkArgumentCount(String[] args, int count, String spec){
+        if(args.length != count){
+            throw new IllegalArgumentException("Wrong argument count: " + spec);
+        }
+    }
+
+    private static int parseInt(String arg){
+        try{
+            return Integer.parseInt(arg);
+        }
+        catch(NumberFormatException exception){
+            throw new IllegalArgumentException("No valid number: " + arg);
+        }
+    }
+
+    private static long parseLong(String arg){
+        try{
+            return Long.parseLong(arg);
+        }
+        catch(NumberFormatException exception){
+            throw new IllegalArgumentException("No valid number: " + arg);
+        }
+    }
+
+    private static double parseDouble(String arg){
+        try{
+            return Double.parseDouble(arg);
+        }
+        catch(NumberFormatException exception){
+            throw new IllegalArgumentException("No valid number: " + arg);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.heapsimulation.workload;
+
+import com.heapsimulation.base.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Sizes from minimum to maximum size in chunk unit steps, where the k-th smallest size has probability
+ * proportional to 1 / k^exponent.
+ */
+public class ZipfSizeDistribution implements ISizeDistribution {
+    private final int minSize;
+    private final double[] cumulativeProbabilities;
+
+    public ZipfSizeDistribution(int minSize, int maxSize, double exponent){
+        if(minSize <= 0 || maxSize < minSize){
+            throw new IllegalArgumentException("Sizes must be positive and minimum size can not be more than maximum size");
+        }
+        if(exponent <= 0){
+            throw new IllegalArgumentException("Zipf exponent must be positive");
+        }
+
+        this.minSize = minSize;
+        int sizeCount = (maxSize - minSize) / HeapUtility.CHUNK_UNIT + 1;
+        cumulativeProbabilities = new double[sizeCount];
+        double sum = 0;
+        for(int i = 0; i < sizeCount; i++){
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulativeProbabilities[i] = sum;
+        }
+        for(int i = 0; i < sizeCount; i++){
+            cumulativeProbabilities[i] /= sum;
+        }
+    }
+
+    @Override
+    public int nextSize(Random random) {
+        int rank = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        if(rank < 0){
+            rank = -rank - 1;   //insertion point
+        }
+        rank = Math.min(rank, cumulativeProbabilities.length - 1);
+
+        return minSize + rank * HeapUtility.CHUNK_UNIT;
+    }
+}